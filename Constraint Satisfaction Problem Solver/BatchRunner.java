@@ -0,0 +1,210 @@
+/* BatchRunner.java
+ *
+ * 		Compile with: 	'javac BatchRunner.java'
+ * 		Run with: 		'java BatchRunner <manifest-file> [options]' or 'java BatchRunner - [options]' to read stdin
+ *
+ *		Options:		--threads <n>		The number of instances solved at the same time (the number of cores)
+ *						--timeout <ms>		Stop the search of an instance after the given number of milliseconds
+ *											(no limit by default)
+ *						--proc <p>			The consistency-enforcing procedure of the instances that do not give
+ *											one (fc by default)
+ *
+ *		Description:	Solves many CSPs in one JVM on a bounded pool of threads, so that the JVM starts and
+ *							warms up once. Every line of the manifest (or of the standard input, which is
+ *							read as it arrives) is '<var-file> <con-file> [consistency-enforcing-procedure]',
+ *							with relative paths taken from the directory of the manifest (or the working
+ *							directory for the standard input).
+ *							Each instance is searched for its first solution by its own solver without
+ *							a branch limit and without a trace. The result of each instance is printed as
+ *							a line of JSON as soon as it is done, so the results come out in the order
+ *							that the instances finish in.
+ */
+
+import java.io.*;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BatchRunner {
+
+	private final int threads;
+	private final long timeout;
+	private final String defaultProc;
+	private final PrintStream out;
+
+	// The number of instances read
+	private final AtomicLong read = new AtomicLong();
+
+	/* Creates a batch runner
+	 *		Input:	The number of instances solved at the same time				(int threads)
+	 *				The time limit of each search in milliseconds (0 for none)	(long timeout)
+	 *				The procedure of the instances that do not give one			(String defaultProc)
+	 *				Where the results are printed								(PrintStream out)
+	 */
+	public BatchRunner(int threads, long timeout, String defaultProc, PrintStream out)
+	{
+		this.threads = threads;
+		this.timeout = timeout;
+		this.defaultProc = defaultProc;
+		this.out = out;
+	}
+
+	/* Solves every instance of a manifest, starting each one as soon as its line is read and a thread is free
+	 *		Input:	The lines of the manifest											(BufferedReader manifest)
+	 *				The directory that relative paths are resolved against (null for	(File baseDir)
+	 *				the working directory)
+	 *
+	 *		Output:	The number of instances												(long)
+	 */
+	public long run(BufferedReader manifest, File baseDir) throws IOException, InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for(String line = manifest.readLine(); line != null; line = manifest.readLine())
+			{
+				String[] parts = line.trim().split("\\s+");
+				if(parts[0].isEmpty() || parts[0].startsWith("#"))
+					continue;
+				long number = read.incrementAndGet();
+				pool.execute(() -> report(solve(number, parts, baseDir)));
+			}
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		return read.get();
+	}
+
+	/* Loads and solves one instance
+	 *		Input:	The line number of the instance in the manifest		(long number)
+	 *				The fields of its line								(String[] parts)
+	 *				The directory that relative paths are resolved against	(File baseDir)
+	 *
+	 *		Output:	The result as a line of JSON						(String)
+	 */
+	private String solve(long number, String[] parts, File baseDir)
+	{
+		StringBuilder result = new StringBuilder("{\"instance\": ").append(number);
+		String proc = parts.length >= 3 ? parts[2] : defaultProc;
+		result.append(", \"var\": ").append(quote(parts[0]));
+		result.append(", \"con\": ").append(parts.length >= 2 ? quote(parts[1]) : "null");
+		result.append(", \"proc\": ").append(quote(proc));
+
+		try {
+			if(parts.length < 2 || parts.length > 3)
+				throw new IllegalArgumentException("A manifest line needs a var file, a con file and optionally a procedure.");
+			int type = Solver.procedure(proc);
+			if(type < 0)
+				throw new IllegalArgumentException(proc + " is not a valid consistency-enforcing procedure.");
+
+			CSP csp = CSP.load(resolve(baseDir, parts[0]), resolve(baseDir, parts[1]));
+			Solver solver = new Solver(csp, type);
+			solver.setLimits(new SearchLimits(0, 0, timeout));
+			int[] solution = solver.solve();
+
+			// The instance is solved, has no solution or ran out of time
+			String status = solution != null ? "solved" : solver.isLimitReached() ? "timeout" : "unsatisfiable";
+			result.append(", \"status\": \"").append(status).append('"');
+			result.append(", \"loadMs\": ").append(String.format(Locale.ROOT, "%.3f", csp.loadTime / 1e6));
+			if(solution != null) {
+				result.append(", \"solution\": {");
+				for(int var = 0; var < csp.size(); var++)
+					result.append(var > 0 ? ", " : "").append(quote(csp.name(var))).append(": ").append(solution[var]);
+				result.append('}');
+			}
+			result.append(", \"stats\": ").append(solver.getStats().toJson());
+		} catch(IOException e) {
+			result.append(", \"status\": \"error\", \"error\": ").append(quote(e.getMessage() + " could not be read."));
+		} catch(RuntimeException e) {
+			result.append(", \"status\": \"error\", \"error\": ").append(quote(String.valueOf(e.getMessage() != null ? e.getMessage() : e)));
+		} catch(StackOverflowError e) {
+			// The search recurses once per variable, so an instance that is too deep must not take its result line with it
+			result.append(", \"status\": \"error\", \"error\": ").append(quote("The search ran out of stack."));
+		}
+		return result.append('}').toString();
+	}
+
+	/* Resolves a path of the manifest
+	 *		Input:	The directory that relative paths are resolved against (or null)	(File baseDir)
+	 *				The path															(String path)
+	 *
+	 *		Output:	The resolved path													(String)
+	 */
+	private static String resolve(File baseDir, String path)
+	{
+		return baseDir == null || new File(path).isAbsolute() ? path : new File(baseDir, path).getPath();
+	}
+
+	/* Prints the result of an instance as soon as it is done
+	 *		Input:	The result as a line of JSON	(String result)
+	 */
+	private void report(String result)
+	{
+		synchronized(out) {
+			out.println(result);
+			out.flush();
+		}
+	}
+
+	/* Returns a string as a JSON string literal
+	 *		Input:	The string		(String s)
+	 *
+	 *		Output:	The literal		(String)
+	 */
+	private static String quote(String s)
+	{
+		StringBuilder quoted = new StringBuilder("\"");
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if(c < 0x20)
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		if(args.length < 1) {
+			System.out.println("Incorrect number of arguments. Execute with: 'java BatchRunner <manifest-file> [options]'");
+			return;
+		}
+
+		// Read the options
+		int threads = Runtime.getRuntime().availableProcessors();
+		long timeout = 0;
+		String proc = "fc";
+		try {
+			for(int i = 1; i < args.length; i++) {
+				if(Objects.equals(args[i], "--threads") && i+1 < args.length && Integer.parseInt(args[i+1]) > 0)
+					threads = Integer.parseInt(args[++i]);
+				else if(Objects.equals(args[i], "--timeout") && i+1 < args.length && Long.parseLong(args[i+1]) >= 0)
+					timeout = Long.parseLong(args[++i]);
+				else if(Objects.equals(args[i], "--proc") && i+1 < args.length && Solver.procedure(args[i+1]) >= 0)
+					proc = args[++i];
+				else {
+					System.out.println(args[i] + " is not a valid option.");
+					return;
+				}
+			}
+		} catch(NumberFormatException e) {
+			System.out.println(e.getMessage() + " is not a valid number.");
+			return;
+		}
+
+		// Solve the instances of the manifest (with paths relative to it), or of the standard input as they come in
+		BatchRunner runner = new BatchRunner(threads, timeout, proc, System.out);
+		if(args[0].equals("-"))
+			runner.run(new BufferedReader(new InputStreamReader(System.in)), null);
+		else
+			try(BufferedReader manifest = new BufferedReader(new FileReader(args[0]))) {
+				runner.run(manifest, new File(args[0]).getAbsoluteFile().getParentFile());
+			}
+	}
+}
@@ -0,0 +1,257 @@
+/* Benchmark.java
+ *
+ *		Compile with: 	'javac Benchmark.java'
+ *		Run with: 		'java Benchmark [options]'
+ *
+ *		Options:		--warmup <n>		The number of untimed runs of each benchmark (3)
+ *						--iterations <n>	The number of timed runs of each benchmark (5)
+ *						--max-nodes <n>		The node budget of each end-to-end search (200000)
+ *						--out <f>			Write the score of each benchmark to the file f
+ *						--baseline <f>		Compare the scores with the ones in the file f and exit with
+ *											status 1 if any of them dropped by more than the tolerance
+ *						--tolerance <p>		The share that a score may drop by (0.25)
+ *
+ *		Description:	Measures the solver on seeded instances from InstanceGenerator: the n-queens graph
+ *							coloring problem, a random graph coloring problem and a model B random CSP.
+ *							Every instance is searched end to end with none and fc (reporting nodes per
+ *							second), and the hot methods of the search (consistent, adjustVarDomains,
+ *							orderValues and nextVar) are timed on their own from a partial assignment
+ *							halfway down the search (reporting operations per second). Each benchmark
+ *							also reports the bytes it allocates per node or operation.
+ */
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+public class Benchmark {
+
+	// The number of calls that make up one run of a hot method benchmark
+	private static final int OPS = 200000;
+
+	private static int warmup = 3, iterations = 5;
+	private static long maxNodes = 200000;
+
+	// The score of each benchmark, in the order they ran
+	private static final LinkedHashMap<String, Double> scores = new LinkedHashMap<String, Double>();
+
+	/* Runs a benchmark: the untimed runs and then the timed ones, printing its score (units per second) and allocation
+	 *		Input:	Name of the benchmark								(String name)
+	 *				Unit counted by the benchmark (nodes or ops)		(String unit)
+	 *				A run of the benchmark that returns its unit count	(LongSupplier run)
+	 */
+	private static void measure(String name, String unit, LongSupplier run)
+	{
+		for(int i = 0; i < warmup; i++)
+			run.getAsLong();
+
+		long units = 0, bytes = allocatedBytes(), start = System.nanoTime();
+		for(int i = 0; i < iterations; i++)
+			units += run.getAsLong();
+		long elapsed = System.nanoTime() - start;
+		bytes = allocatedBytes() - bytes;
+
+		double score = units / (elapsed / 1e9);
+		scores.put(name, score);
+		System.out.printf("%-34s %14.0f %s/s %10.1f bytes/%s%n", name, score, unit, bytes < 0 ? Double.NaN : (double) bytes / Math.max(units, 1), unit.substring(0, unit.length()-1));
+	}
+
+	/* Returns the bytes allocated by the current thread so far
+	 *		Output:	The number of bytes or a negative number if the JVM does not count them	(long)
+	 */
+	private static long allocatedBytes()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/* Benchmarks one instance: an end-to-end search with each procedure and the hot methods
+	 *		Input:	Name of the instance	(String name)
+	 *				The instance			(CSP csp)
+	 */
+	private static void benchmark(String name, CSP csp)
+	{
+		// Search end to end with a node budget so that every run does the same work
+		SearchLimits limits = new SearchLimits(maxNodes, 0, 0);
+		for(String proc : new String[] {"none", "fc"})
+		{
+			int type = Solver.procedure(proc);
+			measure(name + " search " + proc, "nodes", () -> {
+				Solver solver = new Solver(csp, type);
+				solver.setLimits(limits);
+				solver.solve();
+				return solver.getNodes();
+			});
+		}
+
+		// Time the hot methods on the variable chosen next halfway down the search
+		Solver solver = halfway(csp);
+		int var = solver.nextVar();
+		int count = 0;
+		for(boolean assigned : solver.assigned)
+			if(assigned)
+				count++;
+		int depth = count;
+		int val = solver.domains.value(var, 0);
+
+		measure(name + " consistent", "ops", () -> {
+			for(int i = 0; i < OPS; i++) {
+				solver.assignment[var] = val;
+				solver.assigned[var] = true;
+				solver.consistent(var);
+				solver.assigned[var] = false;
+			}
+			return OPS;
+		});
+		measure(name + " adjustVarDomains", "ops", () -> {
+			for(int i = 0; i < OPS; i++) {
+				solver.assignment[var] = val;
+				solver.assigned[var] = true;
+				int mark = solver.domains.mark();
+				solver.adjustVarDomains(var);
+				solver.domains.undo(mark);
+				solver.assigned[var] = false;
+			}
+			return OPS;
+		});
+		measure(name + " orderValues", "ops", () -> {
+			for(int i = 0; i < OPS / 10; i++)
+				solver.orderValues(var, depth);
+			return OPS / 10;
+		});
+		measure(name + " nextVar", "ops", () -> {
+			for(int i = 0; i < OPS / 10; i++)
+				solver.nextVar();
+			return OPS / 10;
+		});
+	}
+
+	/* Assigns variables with forward checking, in the order the search would, until half of them are assigned or the next
+	 * assignment fails
+	 *		Input:	The instance								(CSP csp)
+	 *
+	 *		Output:	A solver holding the partial assignment		(Solver)
+	 */
+	private static Solver halfway(CSP csp)
+	{
+		Solver solver = new Solver(csp, Solver.FC);
+		solver.setLimits(SearchLimits.unlimited());
+		for(int depth = 0; depth < csp.size() / 2; depth++)
+		{
+			int var = solver.nextVar();
+			int mark = solver.domains.mark();
+			if(!solver.assign(var, solver.orderValues(var, depth)[0], depth)) {
+				solver.domains.undo(mark);
+				solver.assigned[var] = false;
+				break;
+			}
+		}
+		return solver;
+	}
+
+	/* Generates an instance into a temporary directory and loads it
+	 *		Input:	The generator, given the var file and the con file	(Generator generator)
+	 *
+	 *		Output:	The instance										(CSP)
+	 */
+	private static CSP generate(Generator generator) throws IOException
+	{
+		File dir = Files.createTempDirectory("csp-benchmark").toFile();
+		File varFile = new File(dir, "instance.var"), conFile = new File(dir, "instance.con");
+		try {
+			generator.write(varFile.getPath(), conFile.getPath());
+			return CSP.load(varFile.getPath(), conFile.getPath());
+		} finally {
+			varFile.delete();
+			conFile.delete();
+			dir.delete();
+		}
+	}
+
+	/* Writes an instance to a var file and a con file */
+	private interface Generator {
+		void write(String varFile, String conFile) throws IOException;
+	}
+
+	/* Compares the scores with the ones in a baseline file (lines of 'name<tab>score')
+	 *		Input:	Path to the baseline file					(String path)
+	 *				The share that a score may drop by			(double tolerance)
+	 *
+	 *		Output:	True if no score dropped by more than that	(boolean)
+	 */
+	private static boolean compare(String path, double tolerance) throws IOException
+	{
+		boolean ok = true;
+		try(BufferedReader in = new BufferedReader(new FileReader(path)))
+		{
+			for(String line = in.readLine(); line != null; line = in.readLine())
+			{
+				String[] parts = line.split("\t");
+				Double score = parts.length == 2 ? scores.get(parts[0]) : null;
+				if(score == null)
+					continue;
+				double base = Double.parseDouble(parts[1]);
+				double change = score / base - 1;
+				System.out.printf("%-34s %+7.1f%%%s%n", parts[0], 100 * change, change < -tolerance ? "  REGRESSION" : "");
+				if(change < -tolerance)
+					ok = false;
+			}
+		}
+		return ok;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		// Read the options
+		String out = null, baseline = null;
+		double tolerance = 0.25;
+		try {
+			for(int i = 0; i < args.length; i++) {
+				if(args[i].equals("--warmup") && i+1 < args.length)
+					warmup = Integer.parseInt(args[++i]);
+				else if(args[i].equals("--iterations") && i+1 < args.length)
+					iterations = Integer.parseInt(args[++i]);
+				else if(args[i].equals("--max-nodes") && i+1 < args.length)
+					maxNodes = Long.parseLong(args[++i]);
+				else if(args[i].equals("--out") && i+1 < args.length)
+					out = args[++i];
+				else if(args[i].equals("--baseline") && i+1 < args.length)
+					baseline = args[++i];
+				else if(args[i].equals("--tolerance") && i+1 < args.length)
+					tolerance = Double.parseDouble(args[++i]);
+				else {
+					System.out.println(args[i] + " is not a valid option.");
+					return;
+				}
+			}
+		} catch(NumberFormatException e) {
+			System.out.println(e.getMessage() + " is not a valid number.");
+			return;
+		}
+
+		// The seeded instances
+		LinkedHashMap<String, Generator> instances = new LinkedHashMap<String, Generator>();
+		instances.put("queens-7", (v, c) -> InstanceGenerator.queens(7, v, c));
+		instances.put("coloring-100", (v, c) -> InstanceGenerator.coloring(100, 230, 3, 1, v, c));
+		instances.put("modelb-40", (v, c) -> InstanceGenerator.modelB(40, 8, 0.3, 0.35, 1, v, c));
+
+		for(Map.Entry<String, Generator> instance : instances.entrySet())
+			benchmark(instance.getKey(), generate(instance.getValue()));
+
+		// Save the scores
+		if(out != null)
+			try(PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+				for(Map.Entry<String, Double> score : scores.entrySet())
+					writer.println(score.getKey() + "\t" + score.getValue());
+			}
+
+		// Fail if a score dropped below the baseline
+		if(baseline != null && !compare(baseline, tolerance))
+			System.exit(1);
+	}
+}
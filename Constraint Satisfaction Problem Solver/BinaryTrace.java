@@ -0,0 +1,168 @@
+/* BinaryTrace.java
+ *
+ *		Description:	Writes a full trace in a compact binary format that can be decoded into the text
+ *							trace later (with 'java Main --decode-trace <trace-file>'). The file starts with
+ *							a header holding the variable names, followed by one record per branch and a
+ *							summary record:
+ *
+ *							header:		"CSPT", version (byte), number of variables, each name (UTF)
+ *							branch:		0 (failure) or 1 (solution), the number of the branch, its depth,
+ *										then a variable index and a zigzag-encoded value for each pair
+ *							summary:	2, then nodes, branches, solutions, 1 if a limit was reached,
+ *										elapsed nanoseconds
+ *
+ *							Every number other than the tags is a variable-length integer (7 bits per byte).
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+public class BinaryTrace implements TraceSink {
+
+	private static final int MAGIC = 0x43535054, VERSION = 1;
+	private static final int FAILURE = 0, SOLUTION = 1, SUMMARY_RECORD = 2;
+
+	private final DataOutputStream out;
+
+	/* Creates a binary trace and writes its header
+	 *		Input:	The CSP that is searched (for the variable names)	(CSP csp)
+	 *				Path to the trace file								(String path)
+	 */
+	public BinaryTrace(CSP csp, String path) throws IOException
+	{
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		writeVarLong(csp.size());
+		for(int i = 0; i < csp.size(); i++)
+			out.writeUTF(csp.name(i));
+	}
+
+	public boolean wantsBranches()
+	{
+		return true;
+	}
+
+	public synchronized void branch(long number, int[] varOrder, int[] assignment, int depth, boolean solution)
+	{
+		try {
+			out.writeByte(solution ? SOLUTION : FAILURE);
+			writeVarLong(number);
+			writeVarLong(depth);
+			for(int i = 0; i < depth; i++) {
+				writeVarLong(varOrder[i]);
+				writeVarLong(((assignment[varOrder[i]] << 1) ^ (assignment[varOrder[i]] >> 31)) & 0xFFFFFFFFL);
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public synchronized void finish(long nodes, long branches, long solutions, boolean limitReached, long elapsed)
+	{
+		try {
+			out.writeByte(SUMMARY_RECORD);
+			writeVarLong(nodes);
+			writeVarLong(branches);
+			writeVarLong(solutions);
+			writeVarLong(limitReached ? 1 : 0);
+			writeVarLong(elapsed);
+			out.flush();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public synchronized void close()
+	{
+		try {
+			out.close();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/* Writes a non-negative number 7 bits at a time, with the high bit set on every byte but the last
+	 *		Input:	The number	(long value)
+	 */
+	private void writeVarLong(long value) throws IOException
+	{
+		while((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/* Reads a number written by writeVarLong
+	 *		Input:	The stream to read from	(DataInputStream in)
+	 *
+	 *		Output:	The number				(long)
+	 */
+	private static long readVarLong(DataInputStream in) throws IOException
+	{
+		long value = 0;
+		for(int shift = 0; ; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	/* Decodes a binary trace file into the text trace, including the summary line if the trace is complete
+	 *		Input:	Path to the trace file			(String path)
+	 *				Where the text trace is printed	(PrintStream printOut)
+	 */
+	public static void decode(String path, PrintStream printOut) throws IOException
+	{
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+			if(in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+				throw new IOException(path + " is not a binary trace file.");
+
+			// Read the variable names
+			String[] names = new String[(int) readVarLong(in)];
+			for(int i = 0; i < names.length; i++)
+				names[i] = in.readUTF();
+
+			// Print every branch until the summary (or the end of a trace that was cut short)
+			StringBuilder sb = new StringBuilder();
+			while(true) {
+				int tag;
+				try {
+					tag = in.readUnsignedByte();
+				} catch(EOFException e) {
+					break;
+				}
+
+				if(tag == SUMMARY_RECORD) {
+					long nodes = readVarLong(in), branches = readVarLong(in), solutions = readVarLong(in);
+					boolean limitReached = readVarLong(in) != 0;
+					printOut.println(TextTrace.summary(nodes, branches, solutions, limitReached, readVarLong(in)));
+					break;
+				}
+
+				sb.setLength(0);
+				sb.append(readVarLong(in)).append(". ");
+				int depth = (int) readVarLong(in);
+				for(int i = 0; i < depth; i++) {
+					String name = names[(int) readVarLong(in)];
+					long zigzag = readVarLong(in);
+					sb.append(name).append('=').append((int) (zigzag >>> 1) ^ -(int) (zigzag & 1));
+					if(i < depth-1)
+						sb.append(", ");
+				}
+				sb.append(tag == SOLUTION ? "  solution" : "  failure");
+				printOut.println(sb);
+			}
+		}
+	}
+}
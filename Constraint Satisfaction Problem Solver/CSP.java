@@ -0,0 +1,196 @@
+/* CSP.java
+ *
+ *		Description:	The variables, domains and constraints of a CSP as read from a var file and a con
+ *							file. Variable names can be any identifier and are looked up through a hash
+ *							map, so both files are read in a single pass. A CSP is never changed once
+ *							loaded, so any number of solvers can search it at the same time.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class CSP {
+
+	// The variable names, the initial domain of each variable and the constraints
+	public final ArrayList<String> vars;
+	public final int[][] domains;
+	public final Constraint[] cons;
+
+	// The constraints that each variable appears in
+	public final Constraint[][] adjacent;
+
+	// The time it took to load the CSP from its files, in nanoseconds (0 if it was not loaded from files)
+	public long loadTime;
+
+	/* Creates a CSP
+	 *		Input:	The variable names							(ArrayList<String> vars)
+	 *				The initial domain for all the variables	(int[][] domains)
+	 *				The constraints								(Constraint[] cons)
+	 */
+	public CSP(ArrayList<String> vars, int[][] domains, Constraint[] cons)
+	{
+		this.vars = vars;
+		this.domains = domains;
+		this.cons = cons;
+		this.adjacent = buildAdjacency(vars.size(), cons);
+	}
+
+	/* Returns the number of variables
+	 *		Output:	The number of variables	(int)
+	 */
+	public int size()
+	{
+		return vars.size();
+	}
+
+	/* Returns the name of a variable
+	 *		Input:	Variable (index into vars)	(int var)
+	 *
+	 *		Output:	The name					(String)
+	 */
+	public String name(int var)
+	{
+		return vars.get(var);
+	}
+
+	/* Loads a CSP from a var file and a con file, reading each file once. A line of the var file is a variable name (an
+	 * identifier of any length, optionally followed by ':') and its values; a line of the con file is 'name op name'
+	 *		Input:	Path to the var file	(String varFile)
+	 *				Path to the con file	(String conFile)
+	 *
+	 *		Output:	The CSP					(CSP)
+	 */
+	public static CSP load(String varFile, String conFile) throws IOException
+	{
+		long startTime = System.nanoTime();
+
+		// The variable names, their indices and their domains
+		ArrayList<String> vars = new ArrayList<String>();
+		HashMap<String, Integer> index = new HashMap<String, Integer>();
+		ArrayList<int[]> domainList = new ArrayList<int[]>();
+
+		// Loop through lines in var file
+		String[] tokens = new String[16];
+		try(BufferedReader in = Files.newBufferedReader(Paths.get(varFile)))
+		{
+			for(String next = in.readLine(); next != null; next = in.readLine())
+			{
+				int n = split(next, tokens);
+				if(n == 0)
+					continue;
+				if(n > tokens.length) {
+					tokens = new String[2 * n];
+					split(next, tokens);
+				}
+
+				// The name is the first token without its ':' and the rest are the values
+				String name = tokens[0].endsWith(":") ? tokens[0].substring(0, tokens[0].length()-1) : tokens[0];
+				if(index.putIfAbsent(name, vars.size()) != null)
+					throw new IllegalArgumentException(name + " is declared more than once.");
+				vars.add(name);
+
+				int[] domain = new int[n-1];
+				for(int j = 1; j < n; j++)
+					domain[j-1] = Integer.parseInt(tokens[j]);
+				domainList.add(domain);
+			}
+		}
+
+		// Loop through lines in con file and compile each constraint
+		ArrayList<Constraint> conList = new ArrayList<Constraint>();
+		try(BufferedReader in = Files.newBufferedReader(Paths.get(conFile)))
+		{
+			for(String next = in.readLine(); next != null; next = in.readLine())
+			{
+				int n = split(next, tokens);
+				if(n == 0)
+					continue;
+				if(n < 3)
+					throw new IllegalArgumentException(next.trim() + " is not a valid constraint.");
+				int var1 = varIndex(index, tokens[0]);
+				int var2 = varIndex(index, tokens[2]);
+				Constraint.Op op = Constraint.Op.parse(tokens[1]);
+				if(op == null)
+					throw new IllegalArgumentException(tokens[1] + " is not a valid constraint operator.");
+				conList.add(new Constraint(conList.size(), var1, op, var2));
+			}
+		}
+
+		CSP csp = new CSP(vars, domainList.toArray(new int[0][]), conList.toArray(new Constraint[0]));
+		csp.loadTime = System.nanoTime() - startTime;
+		return csp;
+	}
+
+	/* Splits a line into its whitespace-separated tokens, filling in as many as fit
+	 *		Input:	The line					(String line)
+	 *				Where the tokens go			(String[] tokens)
+	 *
+	 *		Output:	The number of tokens		(int)
+	 */
+	private static int split(String line, String[] tokens)
+	{
+		int n = 0;
+		for(int i = 0; i < line.length(); )
+		{
+			// Skip the whitespace before the token and find its end
+			while(i < line.length() && Character.isWhitespace(line.charAt(i)))
+				i++;
+			int start = i;
+			while(i < line.length() && !Character.isWhitespace(line.charAt(i)))
+				i++;
+			if(i > start) {
+				if(n < tokens.length)
+					tokens[n] = line.substring(start, i);
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/* Returns the index of a given variable name
+	 *		Input:	The index of every variable name	(HashMap<String, Integer> index)
+	 *				Variable name						(String x)
+	 *
+	 *		Output:	Variable index						(int)
+	 */
+	public static int varIndex(HashMap<String, Integer> index, String x)
+	{
+		Integer i = index.get(x);
+		if(i == null)
+			throw new IllegalArgumentException(x + " is not a variable.");
+		return i;
+	}
+
+	/* Builds the list of constraints that each variable appears in
+	 *		Input:	The number of variables			(int numVars)
+	 *				The constraints					(Constraint[] cons)
+	 *
+	 *		Output:	The constraints of each variable	(Constraint[][])
+	 */
+	public static Constraint[][] buildAdjacency(int numVars, Constraint[] cons)
+	{
+		// Count the constraints of each variable (a constraint of a variable with itself is only listed once)
+		int[] degree = new int[numVars];
+		for(Constraint con : cons) {
+			degree[con.var1]++;
+			if(con.var2 != con.var1)
+				degree[con.var2]++;
+		}
+
+		// Fill in the constraints of each variable in the order they appear in the con file
+		Constraint[][] adjacent = new Constraint[numVars][];
+		for(int i = 0; i < numVars; i++)
+			adjacent[i] = new Constraint[degree[i]];
+		int[] filled = new int[numVars];
+		for(Constraint con : cons) {
+			adjacent[con.var1][filled[con.var1]++] = con;
+			if(con.var2 != con.var1)
+				adjacent[con.var2][filled[con.var2]++] = con;
+		}
+		return adjacent;
+	}
+}
@@ -0,0 +1,109 @@
+/* Constraint.java
+ *
+ *		Description:	A binary constraint 'var1 op var2' of a CSP, compiled once when the con file is
+ *							loaded so that the solver never has to parse it again.
+ */
+
+public class Constraint {
+
+	/* The operators that a constraint can use */
+	public enum Op {
+		EQ("="), NE("!"), GT(">"), LT("<");
+
+		public final String symbol;
+
+		Op(String symbol)
+		{
+			this.symbol = symbol;
+		}
+
+		/* Returns the operator with the given symbol
+		 *		Input:	Symbol from the con file						(String symbol)
+		 *
+		 *		Output:	The operator or null if the symbol is invalid	(Op)
+		 */
+		public static Op parse(String symbol)
+		{
+			for(Op op : values())
+				if(op.symbol.equals(symbol))
+					return op;
+			return null;
+		}
+
+		/* Returns the operator that holds when the two sides are swapped (x op y == y flip(op) x)
+		 *		Output:	The swapped operator	(Op)
+		 */
+		public Op flip()
+		{
+			if(this == GT)
+				return LT;
+			else if(this == LT)
+				return GT;
+			return this;
+		}
+
+		/* Determines if 'val1 op val2' holds
+		 *		Input:	Value of the left side						(int val1)
+		 *				Value of the right side						(int val2)
+		 *
+		 *		Output:	True if it holds and false otherwise		(boolean)
+		 */
+		public boolean test(int val1, int val2)
+		{
+			switch(this) {
+				case EQ:	return val1 == val2;
+				case NE:	return val1 != val2;
+				case GT:	return val1 > val2;
+				default:	return val1 < val2;
+			}
+		}
+	}
+
+	public final int index, var1, var2;
+	public final Op op;
+
+	/* Creates the constraint 'var1 op var2'
+	 *		Input:	Position of the constraint in the con file	(int index)
+	 *				Left variable (index into vars)				(int var1)
+	 *				Operator									(Op op)
+	 *				Right variable (index into vars)			(int var2)
+	 */
+	public Constraint(int index, int var1, Op op, int var2)
+	{
+		this.index = index;
+		this.var1 = var1;
+		this.op = op;
+		this.var2 = var2;
+	}
+
+	/* Returns the variable on the other side of the constraint
+	 *		Input:	Variable of the constraint (index into vars)	(int var)
+	 *
+	 *		Output:	The other variable								(int)
+	 */
+	public int other(int var)
+	{
+		return var == var1 ? var2 : var1;
+	}
+
+	/* Returns the operator as seen from the given variable, so that 'var opFrom(var) other(var)' holds
+	 *		Input:	Variable of the constraint (index into vars)	(int var)
+	 *
+	 *		Output:	The operator									(Op)
+	 */
+	public Op opFrom(int var)
+	{
+		return var == var1 ? op : op.flip();
+	}
+
+	/* Determines if the constraint holds for the given values
+	 *		Input:	Value of var1								(int val1)
+	 *				Value of var2								(int val2)
+	 *
+	 *		Output:	True if it holds and false otherwise		(boolean)
+	 */
+	public boolean satisfied(int val1, int val2)
+	{
+		return op.test(val1, val2);
+	}
+}
@@ -0,0 +1,85 @@
+/* DomWdegOrdering.java
+ *
+ *		Description:	The dom/wdeg variable ordering. Every constraint has a weight that starts at 1
+ *							and goes up by 1 whenever the constraint causes a failure. The variable with
+ *							the smallest ratio of remaining values to the total weight of its constraints
+ *							with unassigned variables is chosen, so the search turns to the hard part of
+ *							the problem. The weights are kept across restarts.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class DomWdegOrdering implements VarOrdering {
+
+	private final int[] weights;
+	private final Random random;
+
+	/* Creates the ordering with every weight at 1
+	 *		Input:	The CSP that is searched												(CSP csp)
+	 *				Where ties are broken at random, or null to break them alphabetically	(Random random)
+	 */
+	public DomWdegOrdering(CSP csp, Random random)
+	{
+		weights = new int[csp.cons.length];
+		Arrays.fill(weights, 1);
+		this.random = random;
+	}
+
+	public int nextVar(Solver solver)
+	{
+		int bestVar = -1, ties = 0;
+		long bestSize = 0, bestWeight = 0;
+
+		// Loop through the unassigned variables
+		for(int i = 0; i < solver.csp.size(); i++)
+		{
+			if(solver.assigned[i])
+				continue;
+			long size = solver.domains.size(i);
+			long weight = weightedDegree(solver, i);
+
+			// Compare size/weight with the best so far without dividing (a variable without weight comes last)
+			long cmp = bestVar == -1 ? -1 : size * bestWeight - bestSize * weight;
+			if(cmp == 0)
+				cmp = size - bestSize;
+
+			if(cmp < 0) {
+				bestVar = i;
+				bestSize = size;
+				bestWeight = weight;
+				ties = 1;
+			}
+
+			// Break any ties alphabetically or at random
+			else if(cmp == 0 && (random != null ? random.nextInt(++ties) == 0 : solver.csp.name(i).compareTo(solver.csp.name(bestVar)) < 0))
+				bestVar = i;
+		}
+
+		// Return the best variable
+		return bestVar;
+	}
+
+	public void failed(Constraint con)
+	{
+		if(con != null)
+			weights[con.index]++;
+	}
+
+	/* Returns the total weight of the constraints of a variable with other unassigned variables
+	 *		Input:	The solver whose assignment is used	(Solver solver)
+	 *				Variable (index into vars)			(int var)
+	 *
+	 *		Output:	The weighted degree					(long)
+	 */
+	private long weightedDegree(Solver solver, int var)
+	{
+		long weight = 0;
+		for(Constraint con : solver.csp.adjacent[var]) {
+			int other = con.other(var);
+			if(other != var && !solver.assigned[other])
+				weight += weights[con.index];
+		}
+		return weight;
+	}
+}
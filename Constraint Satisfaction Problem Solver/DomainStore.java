@@ -0,0 +1,288 @@
+/* DomainStore.java
+ *
+ *		Description:	Primitive storage for the domains of all the variables of a CSP. Each domain
+ *							is kept as a sparse set over its (sorted, distinct) initial values so
+ *							that removing a value is O(1) and allocates nothing. Every removal is
+ *							recorded on a trail so that it can be undone when backtracking.
+ */
+
+import java.util.Arrays;
+
+public class DomainStore {
+
+	// The sorted, distinct initial values of each variable
+	private final int[][] vals;
+
+	// The indices (into vals) of each variable, with the live ones kept in front
+	private final int[][] dom;
+
+	// The position (in dom) of each value index
+	private final int[][] pos;
+
+	// The number of live values of each variable
+	private final int[] size;
+
+	// The variables that had a value removed, in the order that they were removed
+	private final int[] trail;
+	private int trailSize;
+
+	/* Creates a domain store from the initial domain of every variable
+	 *		Input:	The initial domain for all the variables	(int[][] domains)
+	 */
+	public DomainStore(int[][] domains)
+	{
+		vals = new int[domains.length][];
+		dom = new int[domains.length][];
+		pos = new int[domains.length][];
+		size = new int[domains.length];
+
+		int total = 0;
+		for(int i = 0; i < domains.length; i++)
+		{
+			// Sort the values and drop duplicates
+			int[] sorted = domains[i].clone();
+			Arrays.sort(sorted);
+			int n = 0;
+			for(int j = 0; j < sorted.length; j++)
+				if(n == 0 || sorted[j] != sorted[n-1])
+					sorted[n++] = sorted[j];
+			vals[i] = Arrays.copyOf(sorted, n);
+
+			// Every value starts out live
+			dom[i] = new int[n];
+			pos[i] = new int[n];
+			for(int j = 0; j < n; j++) {
+				dom[i][j] = j;
+				pos[i][j] = j;
+			}
+			size[i] = n;
+			total += n;
+		}
+
+		// A value can only be removed once along a branch, so the trail never needs to grow
+		trail = new int[total];
+	}
+
+	/* Creates a copy of a domain store (including its trail) that can be changed independently of it
+	 *		Input:	The domain store to copy	(DomainStore other)
+	 */
+	public DomainStore(DomainStore other)
+	{
+		vals = other.vals;
+		dom = new int[other.dom.length][];
+		pos = new int[other.pos.length][];
+		for(int i = 0; i < dom.length; i++) {
+			dom[i] = other.dom[i].clone();
+			pos[i] = other.pos[i].clone();
+		}
+		size = other.size.clone();
+		trail = other.trail.clone();
+		trailSize = other.trailSize;
+	}
+
+	/* Returns the number of values remaining in the domain of a variable
+	 *		Input:	Variable (index into vars)	(int var)
+	 *
+	 *		Output:	The size of the domain		(int)
+	 */
+	public int size(int var)
+	{
+		return size[var];
+	}
+
+	/* Returns a value remaining in the domain of a variable; the order of the values is not fixed
+	 *		Input:	Variable (index into vars)				(int var)
+	 *				Position of the value (below size(var))	(int i)
+	 *
+	 *		Output:	The value								(int)
+	 */
+	public int value(int var, int i)
+	{
+		return vals[var][dom[var][i]];
+	}
+
+	/* Determines if a value remains in the domain of a variable
+	 *		Input:	Variable (index into vars)						(int var)
+	 *				Value											(int val)
+	 *
+	 *		Output:	True if the value remains and false otherwise	(boolean)
+	 */
+	public boolean contains(int var, int val)
+	{
+		int idx = Arrays.binarySearch(vals[var], val);
+		return idx >= 0 && pos[var][idx] < size[var];
+	}
+
+	/* Returns the smallest value remaining in the domain of a variable
+	 *		Input:	Variable (index into vars) with a non-empty domain	(int var)
+	 *
+	 *		Output:	The smallest value									(int)
+	 */
+	public int min(int var)
+	{
+		int min = Integer.MAX_VALUE;
+		for(int p = 0; p < size[var]; p++)
+			min = Math.min(min, vals[var][dom[var][p]]);
+		return min;
+	}
+
+	/* Returns the largest value remaining in the domain of a variable
+	 *		Input:	Variable (index into vars) with a non-empty domain	(int var)
+	 *
+	 *		Output:	The largest value									(int)
+	 */
+	public int max(int var)
+	{
+		int max = Integer.MIN_VALUE;
+		for(int p = 0; p < size[var]; p++)
+			max = Math.max(max, vals[var][dom[var][p]]);
+		return max;
+	}
+
+	/* Returns a mark that the domains can later be restored to with undo
+	 *		Output:	The current length of the trail	(int)
+	 */
+	public int mark()
+	{
+		return trailSize;
+	}
+
+	/* Returns the variable that had a value removed at a given position of the trail
+	 *		Input:	Position on the trail (below mark())	(int i)
+	 *
+	 *		Output:	The variable (index into vars)			(int)
+	 */
+	public int trailVar(int i)
+	{
+		return trail[i];
+	}
+
+	/* Restores every value removed since the given mark was taken
+	 *		Input:	A mark returned by mark()	(int mark)
+	 */
+	public void undo(int mark)
+	{
+		// Removed values sit just past the end of their domain, so they come back in reverse order
+		while(trailSize > mark)
+			size[trail[--trailSize]]++;
+	}
+
+	/* Removes a single value from the domain of a variable
+	 *		Input:	Variable (index into vars)	(int var)
+	 *				Value to remove				(int val)
+	 *
+	 *		Output:	The number of values removed	(int)
+	 */
+	public int removeValue(int var, int val)
+	{
+		int idx = Arrays.binarySearch(vals[var], val);
+		if(idx < 0 || pos[var][idx] >= size[var])
+			return 0;
+		removeAt(var, pos[var][idx]);
+		return 1;
+	}
+
+	/* Removes every value from the domain of a variable that has no support in the domain of another variable,
+	 * i.e. every value a for which there is no value b of other with 'a op b'
+	 *		Input:	Variable (index into vars) to remove values from	(int var)
+	 *				Operator as seen from var							(Constraint.Op op)
+	 *				Variable (index into vars) supplying the support	(int other)
+	 *
+	 *		Output:	The number of values removed						(int)
+	 */
+	public int removeUnsupported(int var, Constraint.Op op, int other)
+	{
+		if(size[other] == 0)
+			return 0;
+
+		switch(op) {
+			// a needs to be in the domain of other
+			case EQ: {
+				int removed = 0;
+				for(int p = size[var]-1; p >= 0; p--)
+					if(!contains(other, vals[var][dom[var][p]])) {
+						removeAt(var, p);
+						removed++;
+					}
+				return removed;
+			}
+			// a only lacks support if it is the single value of other
+			case NE:
+				return size[other] == 1 ? removeValue(var, value(other, 0)) : 0;
+			// a needs to be above the smallest value of other
+			case GT:
+				return removeAtMost(var, min(other));
+			// a needs to be below the largest value of other
+			default:
+				return removeAtLeast(var, max(other));
+		}
+	}
+
+	/* Removes every value other than the given one from the domain of a variable
+	 *		Input:	Variable (index into vars)	(int var)
+	 *				Value to keep				(int val)
+	 *
+	 *		Output:	The number of values removed	(int)
+	 */
+	public int removeAllBut(int var, int val)
+	{
+		int removed = 0;
+		for(int p = size[var]-1; p >= 0; p--)
+			if(vals[var][dom[var][p]] != val) {
+				removeAt(var, p);
+				removed++;
+			}
+		return removed;
+	}
+
+	/* Removes every value less than or equal to the given bound from the domain of a variable
+	 *		Input:	Variable (index into vars)	(int var)
+	 *				Bound						(int val)
+	 *
+	 *		Output:	The number of values removed	(int)
+	 */
+	public int removeAtMost(int var, int val)
+	{
+		int removed = 0;
+		for(int p = size[var]-1; p >= 0; p--)
+			if(vals[var][dom[var][p]] <= val) {
+				removeAt(var, p);
+				removed++;
+			}
+		return removed;
+	}
+
+	/* Removes every value greater than or equal to the given bound from the domain of a variable
+	 *		Input:	Variable (index into vars)	(int var)
+	 *				Bound						(int val)
+	 *
+	 *		Output:	The number of values removed	(int)
+	 */
+	public int removeAtLeast(int var, int val)
+	{
+		int removed = 0;
+		for(int p = size[var]-1; p >= 0; p--)
+			if(vals[var][dom[var][p]] >= val) {
+				removeAt(var, p);
+				removed++;
+			}
+		return removed;
+	}
+
+	/* Swaps the value at the given position with the last live value and shrinks the domain
+	 *		Input:	Variable (index into vars)				(int var)
+	 *				Position of the value (below size(var))	(int p)
+	 */
+	private void removeAt(int var, int p)
+	{
+		int last = size[var]-1;
+		int idx = dom[var][p];
+		int lastIdx = dom[var][last];
+		dom[var][p] = lastIdx;
+		dom[var][last] = idx;
+		pos[var][lastIdx] = p;
+		pos[var][idx] = last;
+		size[var]--;
+		trail[trailSize++] = var;
+	}
+}
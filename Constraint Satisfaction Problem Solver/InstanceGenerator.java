@@ -0,0 +1,176 @@
+/* InstanceGenerator.java
+ *
+ *		Run with: 		'java InstanceGenerator queens <n> <var-file> <con-file>'
+ *						'java InstanceGenerator coloring <vertices> <edges> <colors> <seed> <var-file> <con-file>'
+ *						'java InstanceGenerator modelb <vars> <domain-size> <density> <tightness> <seed> <var-file> <con-file>'
+ *
+ *		Description:	Writes seeded benchmark instances in the var/con file format. Since a constraint can
+ *							only compare two variables with =, !, > or <, the queens instance is the n-queens
+ *							graph coloring problem (color the n*n board with n colors so that no two cells
+ *							that attack each other share a color, which places n queens n times over), and
+ *							the model B instance picks the operator of each constraint so that the share
+ *							of value pairs it rules out is the given tightness on average.
+ */
+
+import java.io.*;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+public class InstanceGenerator {
+
+	/* Writes the n-queens graph coloring problem: one variable per cell of an n*n board with the values 1 to n, and a '!'
+	 * constraint between every two cells on the same row, column or diagonal
+	 *		Input:	The size of the board		(int n)
+	 *				Path to the var file		(String varFile)
+	 *				Path to the con file		(String conFile)
+	 */
+	public static void queens(int n, String varFile, String conFile) throws IOException
+	{
+		try(PrintWriter vars = writer(varFile); PrintWriter cons = writer(conFile))
+		{
+			for(int cell = 0; cell < n*n; cell++)
+				vars.println(domainLine(cellName(n, cell), n));
+
+			// Loop through every pair of cells once
+			for(int a = 0; a < n*n; a++)
+				for(int b = a+1; b < n*n; b++)
+				{
+					int rowA = a / n, colA = a % n, rowB = b / n, colB = b % n;
+					if(rowA == rowB || colA == colB || Math.abs(rowA - rowB) == Math.abs(colA - colB))
+						cons.println(cellName(n, a) + " ! " + cellName(n, b));
+				}
+		}
+	}
+
+	/* Writes a random graph coloring problem: one variable per vertex with the values 1 to colors, and a '!' constraint for every
+	 * edge of a random graph
+	 *		Input:	The number of vertices		(int vertices)
+	 *				The number of edges			(int edges)
+	 *				The number of colors		(int colors)
+	 *				Seed of the random graph	(long seed)
+	 *				Path to the var file		(String varFile)
+	 *				Path to the con file		(String conFile)
+	 */
+	public static void coloring(int vertices, int edges, int colors, long seed, String varFile, String conFile) throws IOException
+	{
+		if(edges > (long) vertices * (vertices-1) / 2)
+			throw new IllegalArgumentException("A graph with " + vertices + " vertices has at most " + (long) vertices * (vertices-1) / 2 + " edges.");
+
+		try(PrintWriter vars = writer(varFile); PrintWriter cons = writer(conFile))
+		{
+			for(int v = 0; v < vertices; v++)
+				vars.println(domainLine("v" + v, colors));
+			for(long edge : randomPairs(vertices, edges, new Random(seed)))
+				cons.println("v" + (edge >>> 32) + " ! v" + (int) edge);
+		}
+	}
+
+	/* Writes a random binary CSP in the style of model B: round(density * n(n-1)/2) distinct pairs of variables are constrained,
+	 * and since the con file cannot list the forbidden value pairs, the operator of each constraint is drawn so that the
+	 * expected share of value pairs it forbids is the tightness ('!' forbids 1/d of them, '<' and '>' (d+1)/2d and '=' (d-1)/d)
+	 *		Input:	The number of variables							(int numVars)
+	 *				The number of values of each variable			(int domainSize)
+	 *				The share of pairs of variables constrained		(double density)
+	 *				The share of value pairs forbidden				(double tightness)
+	 *				Seed of the random instance						(long seed)
+	 *				Path to the var file							(String varFile)
+	 *				Path to the con file							(String conFile)
+	 */
+	public static void modelB(int numVars, int domainSize, double density, double tightness, long seed, String varFile, String conFile) throws IOException
+	{
+		if(density < 0 || density > 1 || tightness < 0 || tightness > 1 || domainSize < 2)
+			throw new IllegalArgumentException("The density and tightness need to be between 0 and 1 and the domains need at least 2 values.");
+
+		// The tightness of each operator; a tightness between two of them is reached by mixing the two
+		double ne = 1.0 / domainSize, order = (domainSize + 1) / (2.0 * domainSize), eq = (domainSize - 1.0) / domainSize;
+		Random random = new Random(seed);
+		int numCons = (int) Math.round(density * numVars * (numVars-1) / 2);
+
+		try(PrintWriter vars = writer(varFile); PrintWriter cons = writer(conFile))
+		{
+			for(int v = 0; v < numVars; v++)
+				vars.println(domainLine("x" + v, domainSize));
+			for(long pair : randomPairs(numVars, numCons, random))
+			{
+				String op;
+				if(tightness <= ne)
+					op = "!";
+				else if(tightness <= order)
+					op = random.nextDouble() < (tightness - ne) / (order - ne) ? (random.nextBoolean() ? "<" : ">") : "!";
+				else
+					op = random.nextDouble() < (tightness - order) / (eq - order) ? "=" : (random.nextBoolean() ? "<" : ">");
+				cons.println("x" + (pair >>> 32) + " " + op + " x" + (int) pair);
+			}
+		}
+	}
+
+	/* Draws distinct pairs of numbers below n, each packed into a long as (smaller << 32) | larger
+	 *		Input:	The number of items			(int n)
+	 *				The number of pairs			(int count)
+	 *				The random source			(Random random)
+	 *
+	 *		Output:	The pairs in the order drawn	(LinkedHashSet<Long>)
+	 */
+	private static LinkedHashSet<Long> randomPairs(int n, int count, Random random)
+	{
+		LinkedHashSet<Long> pairs = new LinkedHashSet<Long>();
+		while(pairs.size() < count)
+		{
+			int a = random.nextInt(n), b = random.nextInt(n);
+			if(a != b)
+				pairs.add(((long) Math.min(a, b) << 32) | Math.max(a, b));
+		}
+		return pairs;
+	}
+
+	/* Returns the name of a cell of the board, e.g. r0c3
+	 *		Input:	The size of the board		(int n)
+	 *				The cell (row * n + column)	(int cell)
+	 *
+	 *		Output:	The name					(String)
+	 */
+	private static String cellName(int n, int cell)
+	{
+		return "r" + cell / n + "c" + cell % n;
+	}
+
+	/* Returns the line of the var file for a variable with the values 1 to size
+	 *		Input:	Name of the variable		(String name)
+	 *				The number of values		(int size)
+	 *
+	 *		Output:	The line					(String)
+	 */
+	private static String domainLine(String name, int size)
+	{
+		StringBuilder line = new StringBuilder(name).append(':');
+		for(int val = 1; val <= size; val++)
+			line.append(' ').append(val);
+		return line.toString();
+	}
+
+	/* Opens a buffered writer to a file
+	 *		Input:	Path to the file	(String path)
+	 *
+	 *		Output:	The writer			(PrintWriter)
+	 */
+	private static PrintWriter writer(String path) throws IOException
+	{
+		return new PrintWriter(new BufferedWriter(new FileWriter(path)));
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		try {
+			if(args.length == 4 && args[0].equals("queens"))
+				queens(Integer.parseInt(args[1]), args[2], args[3]);
+			else if(args.length == 7 && args[0].equals("coloring"))
+				coloring(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Long.parseLong(args[4]), args[5], args[6]);
+			else if(args.length == 8 && args[0].equals("modelb"))
+				modelB(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Double.parseDouble(args[3]), Double.parseDouble(args[4]), Long.parseLong(args[5]), args[6], args[7]);
+			else
+				System.out.println("Incorrect arguments. Execute with: 'java InstanceGenerator queens|coloring|modelb <parameters> <var-file> <con-file>'");
+		} catch(IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/* MrvOrdering.java
+ *
+ *		Description:	The default variable ordering: the variable with the fewest values remaining
+ *							(minimum remaining values), then the one in the most constraints with
+ *							unassigned variables (degree), then the first alphabetically or, when a
+ *							random source is given, one of the tied variables at random.
+ */
+
+import java.util.Random;
+
+public class MrvOrdering implements VarOrdering {
+
+	private final Random random;
+
+	/* Creates the ordering
+	 *		Input:	Where ties are broken at random, or null to break them alphabetically	(Random random)
+	 */
+	public MrvOrdering(Random random)
+	{
+		this.random = random;
+	}
+
+	public int nextVar(Solver solver)
+	{
+		int bestVar = -1, bestSize = 0, bestDegree = -1, ties = 0;
+
+		// Loop through the unassigned variables
+		for(int i = 0; i < solver.csp.size(); i++)
+		{
+			if(solver.assigned[i])
+				continue;
+
+			// Use most constrained variable heuristic
+			int size = solver.domains.size(i);
+			if(bestVar == -1 || size < bestSize) {
+				bestVar = i;
+				bestSize = size;
+				bestDegree = -1;
+				ties = 1;
+			}
+
+			// Deal with ties using most constraining variable heuristic (the degree of the best variable is only counted once)
+			else if(size == bestSize)
+			{
+				if(bestDegree < 0)
+					bestDegree = solver.countConstraints(bestVar);
+				int degree = solver.countConstraints(i);
+
+				if(degree > bestDegree) {
+					bestVar = i;
+					bestDegree = degree;
+					ties = 1;
+				}
+
+				// If there are any more ties, break them alphabetically or at random
+				else if(degree == bestDegree && (random != null ? random.nextInt(++ties) == 0 : solver.csp.name(i).compareTo(solver.csp.name(bestVar)) < 0))
+					bestVar = i;
+			}
+		}
+
+		// Return the best variable
+		return bestVar;
+	}
+}
@@ -0,0 +1,129 @@
+/* NogoodStore.java
+ *
+ *		Description:	A bounded store of the nogoods learned by conflict-directed backjumping. A nogood
+ *							is a set of assignments (var=val) that cannot all be part of a solution. The
+ *							store holds at most a fixed number of nogoods and forgets the oldest one
+ *							when it is full. Each variable keeps a list of the nogoods it appears in so
+ *							that only those are checked when it is assigned.
+ */
+
+import java.util.Arrays;
+
+public class NogoodStore {
+
+	// The variables and values of the nogood in each slot and the number of times each slot has been filled
+	private final int[][] vars, vals;
+	private final int[] generation;
+
+	// The next slot to fill (the oldest nogood once the store is full) and the number of nogoods held
+	private int next, count;
+
+	// The slots that each variable appears in, packed with the generation of the slot (stale once the slot is refilled)
+	private final long[][] occ;
+	private final int[] occSize;
+
+	/* Creates an empty nogood store
+	 *		Input:	The number of variables of the CSP		(int numVars)
+	 *				The most nogoods held at the same time	(int capacity)
+	 */
+	public NogoodStore(int numVars, int capacity)
+	{
+		if(capacity <= 0)
+			throw new IllegalArgumentException("The nogood store needs room for at least one nogood.");
+		vars = new int[capacity][];
+		vals = new int[capacity][];
+		generation = new int[capacity];
+		occ = new long[numVars][4];
+		occSize = new int[numVars];
+	}
+
+	/* Returns the number of nogoods held
+	 *		Output:	The number of nogoods	(int)
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/* Adds a nogood, forgetting the oldest one if the store is full
+	 *		Input:	The variables of the nogood (indices into vars)	(int[] nogoodVars)
+	 *				The values of the variables						(int[] nogoodVals)
+	 *				The number of assignments in the nogood			(int length)
+	 */
+	public void add(int[] nogoodVars, int[] nogoodVals, int length)
+	{
+		int slot = next;
+		next = (next + 1) % vars.length;
+		if(count < vars.length)
+			count++;
+
+		// Refilling the slot makes the entries of the old nogood in the occurrence lists stale
+		generation[slot]++;
+		vars[slot] = Arrays.copyOf(nogoodVars, length);
+		vals[slot] = Arrays.copyOf(nogoodVals, length);
+		for(int i = 0; i < length; i++)
+			addOccurrence(nogoodVars[i], slot);
+	}
+
+	/* Returns the number of entries in the occurrence list of a variable; some of them may be stale (see slot)
+	 *		Input:	Variable (index into vars)	(int var)
+	 *
+	 *		Output:	The number of entries		(int)
+	 */
+	public int occurrences(int var)
+	{
+		return occSize[var];
+	}
+
+	/* Returns the slot of an entry in the occurrence list of a variable
+	 *		Input:	Variable (index into vars)									(int var)
+	 *				Position of the entry (below occurrences(var))				(int i)
+	 *
+	 *		Output:	The slot of a nogood with var or -1 if the entry is stale	(int)
+	 */
+	public int slot(int var, int i)
+	{
+		long entry = occ[var][i];
+		int slot = (int) entry;
+		return (int) (entry >>> 32) == generation[slot] ? slot : -1;
+	}
+
+	/* Returns the variables of the nogood in a slot
+	 *		Input:	Slot returned by slot	(int slot)
+	 *
+	 *		Output:	The variables			(int[])
+	 */
+	public int[] vars(int slot)
+	{
+		return vars[slot];
+	}
+
+	/* Returns the values of the nogood in a slot, in the same order as its variables
+	 *		Input:	Slot returned by slot	(int slot)
+	 *
+	 *		Output:	The values				(int[])
+	 */
+	public int[] vals(int slot)
+	{
+		return vals[slot];
+	}
+
+	/* Adds a slot to the occurrence list of a variable, dropping the stale entries before the list grows
+	 *		Input:	Variable (index into vars)	(int var)
+	 *				Slot of a nogood with var	(int slot)
+	 */
+	private void addOccurrence(int var, int slot)
+	{
+		if(occSize[var] == occ[var].length)
+		{
+			int n = 0;
+			for(int i = 0; i < occSize[var]; i++)
+				if(slot(var, i) >= 0)
+					occ[var][n++] = occ[var][i];
+			occSize[var] = n;
+			if(n * 2 > occ[var].length)
+				occ[var] = Arrays.copyOf(occ[var], occ[var].length * 2);
+		}
+		occ[var][occSize[var]++] = ((long) generation[slot] << 32) | slot;
+	}
+}
@@ -0,0 +1,478 @@
+/* ParallelSolver.java
+ *
+ *		Description:	Searches a CSP on several cores. The subtrees under the assignments of the first few
+ *							variables are searched as fork-join tasks (idle threads steal the tasks that are
+ *							left) and the first solution found cancels the other tasks. In deterministic mode
+ *							every task keeps its branches until the search is over, so that they are printed
+ *							in the same order and with the same numbers as the sequential search. Every
+ *							solution can be enumerated instead, in which case the tasks hand them to one
+ *							consumer (one at a time) as they are found. The statistics of the tasks are
+ *							added up as they go, so they can be reported while the search runs.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import jdk.jfr.FlightRecorder;
+
+public class ParallelSolver {
+
+	final CSP csp;
+	final int type;
+	boolean verify;
+
+	// The budgets of the search (shared by all the tasks)
+	SearchLimits limits = SearchLimits.defaults();
+
+	// The number of threads, the number of variables assigned before the subtrees are searched sequentially and whether
+	// the branches are printed as in the sequential search
+	int threads = Runtime.getRuntime().availableProcessors();
+	int splitDepth = 2;
+	boolean deterministic;
+
+	// Where the branches are traced
+	TraceSink trace = TraceSink.NONE;
+
+	// Whether the tasks time their search, and where the progress of the search is reported (null for nowhere) and how often
+	boolean timed;
+	Consumer<SearchStats> onProgress;
+	long progressInterval;
+
+	// The state shared by the tasks of a search: the number of the next branch, the number of nodes visited and solutions
+	// found, whether a limit has been reached, whether a solution has been found and the one that was printed (when not
+	// deterministic) and the path of the first subtree with a solution
+	private AtomicLong nextBranch, nodeCount, solutionCount;
+	private long startTime;
+	private volatile boolean limitReached;
+	private AtomicBoolean solved;
+	private AtomicReference<int[]> printedSolution;
+	private AtomicReference<int[]> solutionPath;
+
+	// The statistics that the tasks have added so far, when the progress is next due, the branches and solutions traced, the
+	// time the search took, whether it is running and its JFR event (null while nothing is being recorded)
+	private SearchStats totals;
+	private AtomicLong nextProgress;
+	private long branches, solutions, elapsed;
+	private volatile boolean running;
+	private SearchEvent event;
+
+	/* Creates a parallel solver for a CSP
+	 *		Input:	The CSP to solve										(CSP csp)
+	 *				The consistency-enforcing procedure (NONE, FC or AC3)	(int type)
+	 */
+	public ParallelSolver(CSP csp, int type)
+	{
+		this.csp = csp;
+		this.type = type;
+	}
+
+	/* Sets the budgets of the search
+	 *		Input:	The limits	(SearchLimits limits)
+	 */
+	public void setLimits(SearchLimits limits)
+	{
+		this.limits = limits;
+	}
+
+	/* Sets where the branches and the summary of the search are traced
+	 *		Input:	The trace sink	(TraceSink trace)
+	 */
+	public void setTrace(TraceSink trace)
+	{
+		this.trace = trace;
+	}
+
+	/* Turns the timers of the tasks (time choosing variables, ordering values and propagating) on or off
+	 *		Input:	True to time the search	(boolean timed)
+	 */
+	public void setTimed(boolean timed)
+	{
+		this.timed = timed;
+	}
+
+	/* Sets where the progress of the search is reported while it runs; the statistics reported only include what the tasks
+	 * have added so far
+	 *		Input:	Where the statistics so far go or null for nowhere	(Consumer<SearchStats> onProgress)
+	 *				How often they are reported, in milliseconds		(long interval)
+	 */
+	public void setProgress(Consumer<SearchStats> onProgress, long interval)
+	{
+		this.onProgress = onProgress;
+		this.progressInterval = interval * 1000000L;
+	}
+
+	/* Searches for a solution from the start
+	 *		Output:	The solution (assignment) or null if a solution is not found	(int[])
+	 */
+	public int[] solve()
+	{
+		TaskSolver root = search(null);
+		int[] solution;
+
+		// Trace the branches of the subtrees in order if they were kept
+		if(deterministic) {
+			long[] next = {1};
+			solution = traceBranches(root, next, new int[csp.size()]);
+			branches = next[0]-1;
+		}
+		else {
+			solution = printedSolution.get();
+			branches = Math.min(nextBranch.get()-1, limits.maxBranches > 0 ? limits.maxBranches : Long.MAX_VALUE);
+		}
+		finish(solution == null ? 0 : 1);
+		return solution;
+	}
+
+	/* Searches for every solution from the start, handing each one to a consumer as it is found; the consumer is never called
+	 * by two tasks at once, but the array given to it is reused by the search, so it needs to be copied to be kept
+	 *		Input:	Where the solutions go					(Consumer<int[]> consumer)
+	 *
+	 *		Output:	The number of solutions found			(long)
+	 */
+	public long enumerate(Consumer<int[]> consumer)
+	{
+		if(deterministic)
+			throw new IllegalStateException("Solutions cannot be enumerated by a deterministic parallel search.");
+
+		search(solution -> {
+			synchronized(this) {
+				consumer.accept(solution);
+			}
+		});
+		branches = Math.min(nextBranch.get()-1, limits.maxBranches > 0 ? limits.maxBranches : Long.MAX_VALUE);
+		finish(solutionCount.get());
+		return solutionCount.get();
+	}
+
+	/* Runs the fork-join tasks of a search
+	 *		Input:	Where the solutions go or null to stop at the first one	(Consumer<int[]> onSolution)
+	 *
+	 *		Output:	The solver of the root task								(TaskSolver)
+	 */
+	private TaskSolver search(Consumer<int[]> onSolution)
+	{
+		event = FlightRecorder.isInitialized() ? new SearchEvent() : null;
+		if(event != null)
+			event.begin();
+		startTime = System.nanoTime();
+		running = true;
+		totals = new SearchStats();
+		nextProgress = new AtomicLong(startTime + progressInterval);
+		branches = 0;
+		solutions = 0;
+		nextBranch = new AtomicLong(1);
+		nodeCount = new AtomicLong();
+		solutionCount = new AtomicLong();
+		limitReached = false;
+		solved = new AtomicBoolean();
+		printedSolution = new AtomicReference<int[]>();
+		solutionPath = new AtomicReference<int[]>();
+
+		// The root task starts from an empty assignment
+		Solver start = new Solver(csp, type);
+		start.verify = verify;
+		start.limits = limits;
+		start.deadline = limits.deadline();
+		start.trace = trace;
+		start.onSolution = onSolution;
+		start.timed = timed;
+		TaskSolver root = new TaskSolver(start, new int[0]);
+
+		// Search the subtrees
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(new Subtree(root, 0));
+		} finally {
+			pool.shutdown();
+		}
+		return root;
+	}
+
+	/* Stops the clock of the search, reports its summary to the trace and records its JFR event
+	 *		Input:	The number of solutions found	(long solutions)
+	 */
+	private void finish(long solutions)
+	{
+		this.solutions = solutions;
+		elapsed = System.nanoTime() - startTime;
+		running = false;
+		trace.finish(nodeCount.get(), branches, solutions, limitReached, elapsed);
+		if(event != null)
+			event.commit(Solver.procedureName(type), getStats());
+	}
+
+	/* Returns the statistics of the search that is running (as far as the tasks have added them) or of the last one
+	 *		Output:	A copy of the statistics	(SearchStats)
+	 */
+	public SearchStats getStats()
+	{
+		SearchStats copy;
+		synchronized(totals) {
+			copy = totals.copy();
+		}
+		copy.nodes = nodeCount.get();
+		copy.branches = running ? Math.min(nextBranch.get()-1, limits.maxBranches > 0 ? limits.maxBranches : Long.MAX_VALUE) : branches;
+		copy.solutions = running ? solutionCount.get() : solutions;
+		copy.limitReached = limitReached;
+		copy.elapsed = running ? System.nanoTime() - startTime : elapsed;
+		return copy;
+	}
+
+	/* Returns the number of nodes visited by the last search
+	 *		Output:	The number of nodes	(long)
+	 */
+	public long getNodes()
+	{
+		return nodeCount.get();
+	}
+
+	/* Determines if the last search was stopped by one of its limits rather than finishing
+	 *		Output:	True if a limit was reached and false otherwise	(boolean)
+	 */
+	public boolean isLimitReached()
+	{
+		return limitReached;
+	}
+
+	/* Traces the branches kept by a subtree in order (up to the branch limit) with their numbers; used in deterministic mode
+	 *		Input:	The solver of the subtree									(TaskSolver solver)
+	 *				The number of the next branch								(long[] next)
+	 *				Space to rebuild the assignment of each branch in			(int[] assignment)
+	 *
+	 *		Output:	The solution if it was reached and null otherwise			(int[])
+	 */
+	private int[] traceBranches(TaskSolver solver, long[] next, int[] assignment)
+	{
+		// A kept branch is {1 for a solution or 0, depth, var, val, var, val, ...}
+		int[] varOrder = new int[csp.size()];
+		for(int[] branch : solver.lines) {
+			if(branchLimitPassed(next[0]))
+				return null;
+			if(branch == UNTRACED) {
+				next[0]++;
+				continue;
+			}
+			int depth = branch[1];
+			for(int i = 0; i < depth; i++) {
+				varOrder[i] = branch[2+2*i];
+				assignment[varOrder[i]] = branch[3+2*i];
+			}
+			trace.branch(next[0]++, varOrder, assignment, depth, branch[0] == 1);
+		}
+		if(solver.solution != null)
+			return solver.solution;
+
+		for(TaskSolver child : solver.children) {
+			int[] solution = traceBranches(child, next, assignment);
+			if(solution != null || branchLimitPassed(next[0]))
+				return solution;
+		}
+		return null;
+	}
+
+	/* Determines if a branch number is past the branch limit
+	 *		Input:	The number of the branch							(long n)
+	 *
+	 *		Output:	True if it is past the limit and false otherwise	(boolean)
+	 */
+	private boolean branchLimitPassed(long n)
+	{
+		return limits.maxBranches > 0 && n > limits.maxBranches;
+	}
+
+	/* Compares two subtree paths in the order that the sequential search visits the subtrees
+	 *		Input:	First path								(int[] a)
+	 *				Second path								(int[] b)
+	 *
+	 *		Output:	Negative, zero or positive like compareTo	(int)
+	 */
+	private static int comparePaths(int[] a, int[] b)
+	{
+		for(int i = 0; i < a.length && i < b.length; i++)
+			if(a[i] != b[i])
+				return Integer.compare(a[i], b[i]);
+		return Integer.compare(a.length, b.length);
+	}
+
+	// Kept in place of a branch in deterministic mode when the trace does not want the branches
+	private static final int[] UNTRACED = new int[0];
+
+	/* A solver for one subtree of the search */
+	private class TaskSolver extends Solver {
+
+		// The position of the subtree (the index of the value chosen at each split level)
+		final int[] path;
+
+		// The branches kept in deterministic mode, the subtrees split off from this one and the solution found in it
+		final ArrayList<int[]> lines = new ArrayList<int[]>();
+		final ArrayList<TaskSolver> children = new ArrayList<TaskSolver>();
+		int[] solution;
+
+		TaskSolver(Solver other, int[] path)
+		{
+			super(other);
+			this.path = path;
+		}
+
+		/* Records that a solution was found in this subtree
+		 *		Input:	The solution	(int[] solution)
+		 */
+		void found(int[] solution)
+		{
+			this.solution = solution;
+
+			// Keep the path of the earliest subtree with a solution
+			int[] current;
+			do {
+				current = solutionPath.get();
+				if(current != null && comparePaths(current, path) <= 0)
+					return;
+			} while(!solutionPath.compareAndSet(current, path));
+		}
+
+		/* Adds the nodes visited and the statistics gathered since the last call to the shared ones */
+		void flushNodes()
+		{
+			nodeCount.addAndGet(nodes);
+			nodes = 0;
+			synchronized(totals) {
+				totals.add(stats);
+			}
+			stats.reset();
+		}
+
+		@Override
+		protected boolean visit()
+		{
+			// Add the nodes to the shared count in batches and check the node and time limits then
+			if(++nodes == 256) {
+				long total = nodeCount.addAndGet(nodes);
+				nodes = 0;
+				long now = System.nanoTime();
+				if((limits.maxNodes > 0 && total > limits.maxNodes) || now > deadline)
+					ParallelSolver.this.limitReached = true;
+
+				// One task reports the progress when it is due
+				ParallelSolver outer = ParallelSolver.this;
+				long due = outer.nextProgress.get();
+				if(outer.onProgress != null && now >= due && outer.nextProgress.compareAndSet(due, now + outer.progressInterval))
+					outer.onProgress.accept(outer.getStats());
+			}
+			return !cancelled();
+		}
+
+		@Override
+		protected boolean cancelled()
+		{
+			if(ParallelSolver.this.limitReached)
+				return true;
+
+			// In deterministic mode only the subtrees after the first one with a solution are cancelled
+			int[] first = solutionPath.get();
+			if(deterministic)
+				return first != null && comparePaths(first, path) < 0;
+			return first != null;
+		}
+
+		@Override
+		protected void branch(int depth, boolean solution)
+		{
+			// Keep the branch until the search is over (a subtree never needs more than the branch limit)
+			if(deterministic) {
+				if(!trace.wantsBranches()) {
+					lines.add(UNTRACED);
+					if(lines.size() == limits.maxBranches)
+						this.limitReached = true;
+					return;
+				}
+				int[] branch = new int[2 + 2*depth];
+				branch[0] = solution ? 1 : 0;
+				branch[1] = depth;
+				for(int i = 0; i < depth; i++) {
+					branch[2+2*i] = varOrder[i];
+					branch[3+2*i] = assignment[varOrder[i]];
+				}
+				lines.add(branch);
+				if(lines.size() == limits.maxBranches)
+					this.limitReached = true;
+				return;
+			}
+
+			// Only the first solution found is traced, unless every solution is being enumerated
+			if(solution) {
+				if(onSolution != null)
+					solutionCount.incrementAndGet();
+				else if(!solved.compareAndSet(false, true))
+					return;
+			}
+
+			// Trace the branch with the next number, unless the branch limit has been reached by another task
+			long n = nextBranch.getAndIncrement();
+			if(branchLimitPassed(n)) {
+				ParallelSolver.this.limitReached = true;
+				return;
+			}
+			trace.branch(n, varOrder, assignment, depth, solution);
+			if(solution && onSolution == null)
+				printedSolution.set(assignment.clone());
+			if(n == limits.maxBranches)
+				ParallelSolver.this.limitReached = true;
+		}
+	}
+
+	/* A fork-join task that searches one subtree */
+	private class Subtree extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final TaskSolver solver;
+		final int depth;
+
+		Subtree(TaskSolver solver, int depth)
+		{
+			this.solver = solver;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			// Below the split levels (or at a complete assignment) search the rest of the subtree sequentially
+			if(depth >= splitDepth || solver.complete(depth))
+			{
+				int[] result = solver.backtracking(depth);
+				solver.flushNodes();
+				if(result != null)
+					solver.found(result);
+				return;
+			}
+
+			// Count the node, then choose the next variable to assign and order its values
+			if(!solver.visit())
+				return;
+			solver.flushNodes();
+			int var = solver.nextVar();
+			int[] order = solver.orderValues(var, depth);
+			int domainSize = solver.domains.size(var);
+
+			// Split off a subtree for every value that holds up
+			ArrayList<Subtree> tasks = new ArrayList<Subtree>();
+			for(int i = 0; i < domainSize && !solver.stopped(); i++)
+			{
+				int[] path = Arrays.copyOf(solver.path, solver.path.length+1);
+				path[solver.path.length] = i;
+
+				TaskSolver child = new TaskSolver(solver, path);
+				solver.children.add(child);
+				if(child.assign(var, order[i], depth))
+					tasks.add(new Subtree(child, depth+1));
+			}
+			invokeAll(tasks);
+		}
+	}
+}
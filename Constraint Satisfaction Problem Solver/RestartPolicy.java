@@ -0,0 +1,71 @@
+/* RestartPolicy.java
+ *
+ *		Description:	When a search gives up on its current branch and starts again from the top. Each
+ *							run of the search is allowed a number of failed branches (its cutoff) before
+ *							it restarts; the cutoffs follow the Luby sequence (1, 1, 2, 1, 1, 2, 4, ...)
+ *							or grow geometrically, both scaled by a base number of failures.
+ */
+
+public class RestartPolicy {
+
+	// The factor that geometric cutoffs grow by
+	public static final double GROWTH = 1.5;
+
+	public final boolean luby;
+	public final long base;
+
+	/* Creates a restart policy
+	 *		Input:	True for Luby cutoffs and false for geometric ones	(boolean luby)
+	 *				The number of failures the cutoffs are scaled by	(long base)
+	 */
+	public RestartPolicy(boolean luby, long base)
+	{
+		if(base <= 0)
+			throw new IllegalArgumentException("The restart base needs to be positive.");
+		this.luby = luby;
+		this.base = base;
+	}
+
+	/* Returns the restart policy with the given name
+	 *		Input:	Name of the policy (luby or geometric)			(String name)
+	 *				The number of failures the cutoffs are scaled by	(long base)
+	 *
+	 *		Output:	The policy or null if the name is not valid		(RestartPolicy)
+	 */
+	public static RestartPolicy named(String name, long base)
+	{
+		if(name.equals("luby"))
+			return new RestartPolicy(true, base);
+		else if(name.equals("geometric"))
+			return new RestartPolicy(false, base);
+		return null;
+	}
+
+	/* Returns the number of failed branches that a run of the search is allowed
+	 *		Input:	The number of restarts before the run	(int run)
+	 *
+	 *		Output:	The cutoff								(long)
+	 */
+	public long cutoff(int run)
+	{
+		if(luby)
+			return base * lubyTerm(run + 1);
+		return (long) Math.min(Long.MAX_VALUE, base * Math.pow(GROWTH, run));
+	}
+
+	/* Returns a term of the Luby sequence
+	 *		Input:	Position in the sequence (starting at 1)	(long i)
+	 *
+	 *		Output:	The term									(long)
+	 */
+	public static long lubyTerm(long i)
+	{
+		// The sequence ends each block of length 2^k-1 with 2^(k-1) and repeats itself before that
+		int k = 1;
+		while((1L << k) - 1 < i)
+			k++;
+		if(i == (1L << k) - 1)
+			return 1L << (k-1);
+		return lubyTerm(i - (1L << (k-1)) + 1);
+	}
+}
@@ -0,0 +1,89 @@
+/* SearchEvent.java
+ *
+ *		Description:	A Java Flight Recorder event for one search, recorded when the JVM runs with
+ *							-XX:StartFlightRecording or a recording has been started. The solvers only
+ *							create it while flight recording is on, since loading the JFR classes it
+ *							needs takes longer than a small search. It spans the search and carries its
+ *							statistics, so a recording shows each search alongside the rest of what the
+ *							JVM was doing.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("csp.Search")
+@Label("CSP Search")
+@Category("CSP")
+@Description("A backtracking search of a CSP")
+public class SearchEvent extends jdk.jfr.Event {
+
+	@Label("Procedure")
+	String procedure;
+
+	@Label("Nodes")
+	long nodes;
+
+	@Label("Branches")
+	long branches;
+
+	@Label("Failures")
+	long failures;
+
+	@Label("Solutions")
+	long solutions;
+
+	@Label("Restarts")
+	long restarts;
+
+	@Label("Constraint Checks")
+	long constraintChecks;
+
+	@Label("Values Pruned")
+	long pruned;
+
+	@Label("Max Depth")
+	int maxDepth;
+
+	@Label("Time Choosing Variables")
+	@Timespan(Timespan.NANOSECONDS)
+	long nextVarTime;
+
+	@Label("Time Ordering Values")
+	@Timespan(Timespan.NANOSECONDS)
+	long orderValuesTime;
+
+	@Label("Time Propagating")
+	@Timespan(Timespan.NANOSECONDS)
+	long propagationTime;
+
+	@Label("Limit Reached")
+	boolean limitReached;
+
+	/* Fills in the event from the statistics of a search and records it (the event was begun when the search started)
+	 *		Input:	Name of the consistency-enforcing procedure		(String procedure)
+	 *				The statistics of the search					(SearchStats stats)
+	 */
+	public void commit(String procedure, SearchStats stats)
+	{
+		end();
+		if(!shouldCommit())
+			return;
+		this.procedure = procedure;
+		nodes = stats.nodes;
+		branches = stats.branches;
+		failures = stats.failures;
+		solutions = stats.solutions;
+		restarts = stats.restarts;
+		constraintChecks = stats.constraintChecks;
+		pruned = stats.fcPruned + stats.acPruned;
+		maxDepth = stats.maxDepth;
+		nextVarTime = stats.nextVarTime;
+		orderValuesTime = stats.orderValuesTime;
+		propagationTime = stats.propagationTime;
+		limitReached = stats.limitReached;
+		commit();
+	}
+}
@@ -0,0 +1,49 @@
+/* SearchLimits.java
+ *
+ *		Description:	The budgets of a search: the number of nodes visited, the number of branches
+ *							(failures and solutions) reached and the wall-clock time. The search stops as
+ *							soon as any of them runs out. A limit of 0 means that there is no limit.
+ */
+
+public class SearchLimits {
+
+	public final long maxNodes, maxBranches, timeLimit;
+
+	/* Creates a set of limits
+	 *		Input:	Maximum number of nodes visited		(long maxNodes)
+	 *				Maximum number of branches			(long maxBranches)
+	 *				Time limit in milliseconds			(long timeLimit)
+	 */
+	public SearchLimits(long maxNodes, long maxBranches, long timeLimit)
+	{
+		if(maxNodes < 0 || maxBranches < 0 || timeLimit < 0)
+			throw new IllegalArgumentException("Search limits cannot be negative.");
+		this.maxNodes = maxNodes;
+		this.maxBranches = maxBranches;
+		this.timeLimit = timeLimit;
+	}
+
+	/* Returns the limits used when none are given: the search stops after 30 branches
+	 *		Output:	The default limits	(SearchLimits)
+	 */
+	public static SearchLimits defaults()
+	{
+		return new SearchLimits(0, 30, 0);
+	}
+
+	/* Returns limits that never stop the search
+	 *		Output:	No limits	(SearchLimits)
+	 */
+	public static SearchLimits unlimited()
+	{
+		return new SearchLimits(0, 0, 0);
+	}
+
+	/* Returns the time (in System.nanoTime) at which a search started now runs out of time
+	 *		Output:	The deadline or Long.MAX_VALUE if there is no time limit	(long)
+	 */
+	public long deadline()
+	{
+		return timeLimit == 0 ? Long.MAX_VALUE : System.nanoTime() + timeLimit * 1000000L;
+	}
+}
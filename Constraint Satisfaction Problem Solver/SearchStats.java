@@ -0,0 +1,87 @@
+/* SearchStats.java
+ *
+ *		Description:	The counters and timers of a search: nodes visited, branches, failures, solutions,
+ *							restarts, constraint checks, values pruned by forward checking and by ac3, the
+ *							deepest assignment reached and the time spent choosing variables, ordering
+ *							values and propagating. The times are only measured when the solver is asked
+ *							to (they cost a clock read each). The statistics can be printed as a progress
+ *							line while the search runs or as JSON once it is over.
+ */
+
+import java.util.Locale;
+
+public class SearchStats {
+
+	public long nodes, branches, failures, solutions, restarts;
+	public long constraintChecks, fcPruned, acPruned;
+	public int maxDepth;
+
+	// Times in nanoseconds
+	public long nextVarTime, orderValuesTime, propagationTime, elapsed;
+
+	public boolean limitReached;
+
+	/* Creates a copy of a set of statistics
+	 *		Output:	The copy	(SearchStats)
+	 */
+	public SearchStats copy()
+	{
+		SearchStats copy = new SearchStats();
+		copy.add(this);
+		copy.maxDepth = maxDepth;
+		copy.elapsed = elapsed;
+		copy.limitReached = limitReached;
+		return copy;
+	}
+
+	/* Adds the counters and timers of another set of statistics to these (the deepest assignment is the deeper of the two)
+	 *		Input:	The statistics to add	(SearchStats other)
+	 */
+	public void add(SearchStats other)
+	{
+		nodes += other.nodes;
+		branches += other.branches;
+		failures += other.failures;
+		solutions += other.solutions;
+		restarts += other.restarts;
+		constraintChecks += other.constraintChecks;
+		fcPruned += other.fcPruned;
+		acPruned += other.acPruned;
+		maxDepth = Math.max(maxDepth, other.maxDepth);
+		nextVarTime += other.nextVarTime;
+		orderValuesTime += other.orderValuesTime;
+		propagationTime += other.propagationTime;
+	}
+
+	/* Sets every counter and timer back to 0 */
+	public void reset()
+	{
+		nodes = branches = failures = solutions = restarts = 0;
+		constraintChecks = fcPruned = acPruned = 0;
+		maxDepth = 0;
+		nextVarTime = orderValuesTime = propagationTime = elapsed = 0;
+		limitReached = false;
+	}
+
+	/* Returns a one-line report of a search that is still running
+	 *		Output:	The progress line	(String)
+	 */
+	public String progressLine()
+	{
+		double seconds = elapsed / 1e9;
+		return String.format(Locale.ROOT, "[%.1f s] %d nodes (%.0f/s), %d failures, %d solutions, %d restarts, max depth %d",
+			seconds, nodes, seconds > 0 ? nodes / seconds : 0.0, failures, solutions, restarts, maxDepth);
+	}
+
+	/* Returns the statistics as a JSON object (times in milliseconds)
+	 *		Output:	The JSON text	(String)
+	 */
+	public String toJson()
+	{
+		return String.format(Locale.ROOT, "{\"nodes\": %d, \"branches\": %d, \"failures\": %d, \"solutions\": %d, \"restarts\": %d, "
+			+ "\"constraintChecks\": %d, \"fcPruned\": %d, \"acPruned\": %d, \"maxDepth\": %d, "
+			+ "\"nextVarMs\": %.3f, \"orderValuesMs\": %.3f, \"propagationMs\": %.3f, \"elapsedMs\": %.3f, \"limitReached\": %b}",
+			nodes, branches, failures, solutions, restarts, constraintChecks, fcPruned, acPruned, maxDepth,
+			nextVarTime / 1e6, orderValuesTime / 1e6, propagationTime / 1e6, elapsed / 1e6, limitReached);
+	}
+}
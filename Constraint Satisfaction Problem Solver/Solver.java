@@ -0,0 +1,1001 @@
+/* Solver.java
+ *
+ *		Description:	The backtracking search of a CSP. All the search state (the domains, the partial
+ *							assignment and the branch count) belongs to the solver, so any number of
+ *							solvers can search the same CSP at the same time. The search either stops at
+ *							the first solution or enumerates every solution, handing each one to a
+ *							consumer as it is found, and it stops early once one of its limits runs out.
+ *							With backjumping on, a failed variable jumps straight back to the deepest
+ *							assignment in its conflict set (FC-CBJ) and can learn the conflict as a nogood.
+ *							The variables are chosen by a pluggable ordering, and with a restart policy
+ *							the search starts over from the top whenever a run fails too many times.
+ *							The counters and timers of the search are kept in a SearchStats, which can
+ *							be reported periodically while it runs and is recorded as a JFR event
+ *							while a flight recording is on.
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Consumer;
+import jdk.jfr.FlightRecorder;
+
+public class Solver {
+
+	// The consistency-enforcing procedures
+	public static final int NONE = 0, FC = 1, AC3 = 2;
+
+	final CSP csp;
+	final int type;
+	boolean verify;
+
+	// The budgets of the search and the time at which it runs out of time
+	SearchLimits limits = SearchLimits.defaults();
+	long deadline = Long.MAX_VALUE;
+
+	// Where the branches are traced, the number of the next branch and whether a limit has been reached
+	TraceSink trace = TraceSink.NONE;
+	long iteration = 1;
+	boolean limitReached;
+
+	// How the next variable is chosen and when the search restarts (null to never restart)
+	VarOrdering ordering = new MrvOrdering(null);
+	RestartPolicy restarts;
+
+	// The failed branches of the current run, the number of them that makes it restart (0 for no limit), whether it is
+	// restarting and the number of restarts so far
+	long failures, failLimit;
+	boolean restarting;
+	int restartCount;
+
+	// The number of nodes visited and solutions found, and where the solutions go when enumerating (null to stop at the first)
+	long nodes, solutions;
+	Consumer<int[]> onSolution;
+
+	// The other counters and timers of the search, whether the timers run, when the search started and how long it took
+	SearchStats stats = new SearchStats();
+	boolean timed;
+	long startTime, elapsed;
+	boolean running;
+
+	// Where the progress of the search is reported (null for nowhere), how often (in nanoseconds) and when it is next due
+	Consumer<SearchStats> onProgress;
+	long progressInterval, nextProgress;
+
+	// The clock is read when the node count has none of these bits set, and when it was last read; the mask shrinks when
+	// nodes are slow (so that the time limit and the progress are not overshot) and grows up to 1023 while they are fast
+	long clockMask = 1023, lastClock;
+
+	// The work queue of arcs used by ac3 (an arc is a constraint index * 2 + the side of the constraint to revise)
+	int[] arcQueue;
+	boolean[] arcQueued;
+	int arcHead, arcCount;
+
+	// The current domains, the (partial) assignment and the order that the variables were assigned in
+	DomainStore domains;
+	int[] assignment, varOrder;
+	boolean[] assigned;
+
+	// The value order (and the sort keys used to build it) of the variable assigned at each depth
+	int[][] valueOrder;
+	long[][] valueKeys;
+
+	// Conflict-directed backjumping: the depth that each variable was assigned at, the depths that each variable is in conflict
+	// with, the depths whose assignments removed values from each variable and the depth that a failed subtree jumps back to
+	boolean backjump;
+	int[] depthOf;
+	BitSet[] conflicts, pastFc;
+	int jumpDepth;
+
+	// The other variable of the constraint that the last failed consistency check broke and the last variable whose domain was emptied
+	int conflictVar, wipeoutVar;
+
+	// The constraint that caused the last failure (null if no single constraint did)
+	Constraint failedCon;
+
+	// The learned nogoods (null if none are kept) and the buffers used to build one
+	NogoodStore nogoods;
+	int[] nogoodVars, nogoodVals;
+
+	/* Creates a solver for a CSP
+	 *		Input:	The CSP to solve								(CSP csp)
+	 *				The consistency-enforcing procedure (NONE, FC or AC3)	(int type)
+	 */
+	public Solver(CSP csp, int type)
+	{
+		this.csp = csp;
+		this.type = type;
+
+		domains = new DomainStore(csp.domains);
+		assignment = new int[csp.size()];
+		assigned = new boolean[csp.size()];
+		varOrder = new int[csp.size()];
+		allocateBuffers();
+	}
+
+	/* Creates a copy of a solver that continues from the same point of the search, independently of it
+	 *		Input:	The solver to copy	(Solver other)
+	 */
+	public Solver(Solver other)
+	{
+		this.csp = other.csp;
+		this.type = other.type;
+		this.verify = other.verify;
+		this.limits = other.limits;
+		this.deadline = other.deadline;
+		this.trace = other.trace;
+		this.onSolution = other.onSolution;
+		this.ordering = other.ordering;
+		this.timed = other.timed;
+
+		domains = new DomainStore(other.domains);
+		assignment = other.assignment.clone();
+		assigned = other.assigned.clone();
+		varOrder = other.varOrder.clone();
+		allocateBuffers();
+	}
+
+	/* Allocates the buffers used while searching, so that the search itself does not need to allocate */
+	private void allocateBuffers()
+	{
+		int maxDomainSize = 0;
+		for(int[] domain : csp.domains)
+			maxDomainSize = Math.max(maxDomainSize, domain.length);
+		valueOrder = new int[csp.size()][maxDomainSize];
+		valueKeys = new long[csp.size()][maxDomainSize];
+		arcQueue = new int[2 * csp.cons.length];
+		arcQueued = new boolean[2 * csp.cons.length];
+	}
+
+	/* Returns the consistency-enforcing procedure with the given name
+	 *		Input:	Name of the procedure (none, fc or ac3)			(String proc)
+	 *
+	 *		Output:	The procedure or -1 if the name is not valid	(int)
+	 */
+	public static int procedure(String proc)
+	{
+		if(proc.equals("ac3"))
+			return AC3;
+		else if(proc.equals("fc"))
+			return FC;
+		else if(proc.equals("none"))
+			return NONE;
+		return -1;
+	}
+
+	/* Turns conflict-directed backjumping on, optionally with a bounded store of the nogoods it learns
+	 *		Input:	The most nogoods kept at the same time (0 to learn none)	(int nogoodCapacity)
+	 */
+	public void setBackjumping(int nogoodCapacity)
+	{
+		backjump = true;
+		depthOf = new int[csp.size()];
+		conflicts = new BitSet[csp.size()];
+		pastFc = new BitSet[csp.size()];
+		for(int i = 0; i < csp.size(); i++) {
+			conflicts[i] = new BitSet();
+			pastFc[i] = new BitSet();
+		}
+		if(nogoodCapacity > 0) {
+			nogoods = new NogoodStore(csp.size(), nogoodCapacity);
+			nogoodVars = new int[csp.size()];
+			nogoodVals = new int[csp.size()];
+		}
+	}
+
+	/* Sets how the next variable is chosen
+	 *		Input:	The variable ordering	(VarOrdering ordering)
+	 */
+	public void setOrdering(VarOrdering ordering)
+	{
+		this.ordering = ordering;
+	}
+
+	/* Sets when the search restarts; restarts only apply to searches that stop at the first solution
+	 *		Input:	The restart policy or null to never restart	(RestartPolicy restarts)
+	 */
+	public void setRestarts(RestartPolicy restarts)
+	{
+		this.restarts = restarts;
+	}
+
+	/* Turns the timers of the search (time choosing variables, ordering values and propagating) on or off
+	 *		Input:	True to time the search	(boolean timed)
+	 */
+	public void setTimed(boolean timed)
+	{
+		this.timed = timed;
+	}
+
+	/* Sets where the progress of the search is reported while it runs
+	 *		Input:	Where the statistics so far go or null for nowhere	(Consumer<SearchStats> onProgress)
+	 *				How often they are reported, in milliseconds		(long interval)
+	 */
+	public void setProgress(Consumer<SearchStats> onProgress, long interval)
+	{
+		this.onProgress = onProgress;
+		this.progressInterval = interval * 1000000L;
+	}
+
+	/* Returns the name of a consistency-enforcing procedure
+	 *		Input:	The procedure (NONE, FC or AC3)	(int type)
+	 *
+	 *		Output:	The name						(String)
+	 */
+	public static String procedureName(int type)
+	{
+		return type == AC3 ? "ac3" : type == FC ? "fc" : "none";
+	}
+
+	/* Sets the budgets of the search
+	 *		Input:	The limits	(SearchLimits limits)
+	 */
+	public void setLimits(SearchLimits limits)
+	{
+		this.limits = limits;
+	}
+
+	/* Sets where the branches and the summary of the search are traced
+	 *		Input:	The trace sink	(TraceSink trace)
+	 */
+	public void setTrace(TraceSink trace)
+	{
+		this.trace = trace;
+	}
+
+	/* Searches for a solution from the start
+	 *		Output:	The solution (assignment) or null if a solution is not found	(int[])
+	 */
+	public int[] solve()
+	{
+		SearchEvent event = start();
+		int[] solution = null;
+
+		// Run the search until it ends without being cut off by the restart policy, allowing more failures on every run
+		for(int run = 0; ; run++) {
+			failures = 0;
+			failLimit = restarts == null ? 0 : restarts.cutoff(run);
+			restarting = false;
+			solution = backjump ? backjumping(0) : backtracking(0);
+			if(!restarting)
+				break;
+			restartCount++;
+		}
+		finish(event);
+		return solution;
+	}
+
+	/* Searches for every solution from the start, handing each one to a consumer as it is found; the array given to the
+	 * consumer is reused by the search, so it needs to be copied to be kept
+	 *		Input:	Where the solutions go					(Consumer<int[]> consumer)
+	 *
+	 *		Output:	The number of solutions found			(long)
+	 */
+	public long enumerate(Consumer<int[]> consumer)
+	{
+		SearchEvent event = start();
+		onSolution = consumer;
+		try {
+			if(backjump)
+				backjumping(0);
+			else
+				backtracking(0);
+		} finally {
+			onSolution = null;
+		}
+		finish(event);
+		return solutions;
+	}
+
+	/* Resets the counters of the search and starts its clock
+	 *		Output:	The JFR event of the search, already begun, or null if	(SearchEvent)
+	 *				nothing is being recorded
+	 */
+	private SearchEvent start()
+	{
+		// Only create the event while flight recording is on (loading the event classes takes longer than a small search),
+		// and before the clock starts
+		SearchEvent event = FlightRecorder.isInitialized() ? new SearchEvent() : null;
+		if(event != null)
+			event.begin();
+
+		iteration = 1;
+		nodes = 0;
+		solutions = 0;
+		failures = 0;
+		failLimit = 0;
+		restartCount = 0;
+		restarting = false;
+		limitReached = false;
+		stats.reset();
+		deadline = limits.deadline();
+		running = true;
+		startTime = System.nanoTime();
+		nextProgress = startTime + progressInterval;
+		clockMask = 0;
+		lastClock = startTime;
+		return event;
+	}
+
+	/* Stops the clock of the search, reports its summary to the trace and records its JFR event
+	 *		Input:	The JFR event of the search (or null)	(SearchEvent event)
+	 */
+	private void finish(SearchEvent event)
+	{
+		elapsed = System.nanoTime() - startTime;
+		running = false;
+		trace.finish(nodes, iteration-1, solutions, limitReached, elapsed);
+		if(event != null)
+			event.commit(procedureName(type), getStats());
+	}
+
+	/* Returns the statistics of the search that is running or of the last one
+	 *		Output:	A copy of the statistics	(SearchStats)
+	 */
+	public SearchStats getStats()
+	{
+		SearchStats copy = stats.copy();
+		copy.nodes = nodes;
+		copy.branches = iteration-1;
+		copy.solutions = solutions;
+		copy.restarts = restartCount;
+		copy.limitReached = limitReached;
+		copy.elapsed = running ? System.nanoTime() - startTime : elapsed;
+		return copy;
+	}
+
+	/* Returns the number of nodes visited by the last search
+	 *		Output:	The number of nodes	(long)
+	 */
+	public long getNodes()
+	{
+		return nodes;
+	}
+
+	/* Returns the number of solutions found by the last search
+	 *		Output:	The number of solutions	(long)
+	 */
+	public long getSolutions()
+	{
+		return solutions;
+	}
+
+	/* Returns the number of times the last search restarted
+	 *		Output:	The number of restarts	(int)
+	 */
+	public int getRestarts()
+	{
+		return restartCount;
+	}
+
+	/* Determines if the last search was stopped by one of its limits rather than finishing
+	 *		Output:	True if a limit was reached and false otherwise	(boolean)
+	 */
+	public boolean isLimitReached()
+	{
+		return limitReached;
+	}
+
+	/* Backtracks until a limit is reached or a complete assignment is found for the given CSP (or every complete assignment has
+	 * been found when enumerating) and prints the branches traversed as it runs
+	 *		Input:	The number of variables assigned so far (the depth of the branch)	(int depth)
+	 *
+	 *		Output:	The solution (assignment) or null if a solution is not found		(int[])
+	 */
+	public int[] backtracking(int depth)
+	{
+		// Count the node and stop if a limit has run out
+		if(!visit())
+			return null;
+
+		// If the assignment is complete, print and return it
+		if(complete(depth))
+		{
+			// Print the solution
+			branch(depth, true);
+			solutions++;
+
+			// When enumerating, hand the solution over and keep searching
+			if(onSolution != null) {
+				onSolution.accept(assignment);
+				return null;
+			}
+
+			// Return the assignment
+			return assignment.clone();
+		}
+
+		// Choose the next variable to assign
+		int var = nextVar();
+
+		// Order the values of var
+		int[] order = orderValues(var, depth);
+		int domainSize = domains.size(var);
+		for(int i = 0; i < domainSize && !stopped(); i++)
+		{
+			int[] result = null;
+
+			// Add var=val to the assignment and, if it holds up, continue backtracking
+			int mark = domains.mark();
+			if(assign(var, order[i], depth))
+				result = backtracking(depth+1);
+
+			// Remove var=val from the assignment and restore the domains that values were removed from
+			domains.undo(mark);
+			assigned[var] = false;
+
+			// If assigning var=val led to a solution, return it
+			if(result != null)
+				return result;
+		}
+
+		// Return null if no solution is found
+		return null;
+	}
+
+	/* Searches like backtracking, but when every value of a variable fails it jumps straight back to the deepest assignment
+	 * that the variable is in conflict with (FC-CBJ), skipping the assignments in between that had nothing to do with
+	 * the failure; the conflict is learned as a nogood if a nogood store is kept and the search stops at the first solution
+	 *		Input:	The number of variables assigned so far (the depth of the branch)	(int depth)
+	 *
+	 *		Output:	The solution (assignment) or null if a solution is not found		(int[])
+	 */
+	public int[] backjumping(int depth)
+	{
+		// Count the node and stop if a limit has run out
+		if(!visit())
+			return null;
+
+		// If the assignment is complete, print and return it
+		if(complete(depth))
+		{
+			branch(depth, true);
+			solutions++;
+
+			// When enumerating, hand the solution over and keep searching; every assignment above a solution is part of it,
+			// so the search goes back one level at a time from here on
+			if(onSolution != null) {
+				onSolution.accept(assignment);
+				jumpDepth = depth-1;
+				if(depth > 0)
+					conflicts[varOrder[depth-1]].set(0, depth-1);
+				return null;
+			}
+
+			return assignment.clone();
+		}
+
+		// Choose the next variable to assign and order its values
+		int var = nextVar();
+		int[] order = orderValues(var, depth);
+		conflicts[var].clear();
+		int domainSize = domains.size(var);
+		for(int i = 0; i < domainSize && !stopped(); i++)
+		{
+			int[] result = null;
+
+			// Add var=val to the assignment and, if it holds up, continue below it
+			int mark = domains.mark();
+			jumpDepth = depth;
+			if(assign(var, order[i], depth))
+				result = backjumping(depth+1);
+
+			// Remove var=val and restore the domains, forgetting that var=val removed values from them
+			for(int t = mark; t < domains.mark(); t++)
+				pastFc[domains.trailVar(t)].clear(depth);
+			domains.undo(mark);
+			assigned[var] = false;
+
+			if(result != null)
+				return result;
+
+			// A failure below that var=val played no part in jumps straight past it
+			if(jumpDepth < depth)
+				return null;
+		}
+		if(stopped())
+			return null;
+
+		// Every value of var failed because of the assignments it conflicts with and the ones that removed values from its domain
+		// (depths at or below this one are left over from undone assignments and are dropped)
+		BitSet conflict = conflicts[var];
+		conflict.or(pastFc[var]);
+		conflict.clear(depth, csp.size()+1);
+
+		// Jump back to the deepest of them, which inherits the rest of the conflict (an empty conflict ends the search)
+		jumpDepth = conflict.length()-1;
+		if(jumpDepth >= 0)
+		{
+			if(nogoods != null && onSolution == null)
+				learn(conflict);
+			BitSet target = conflicts[varOrder[jumpDepth]];
+			target.or(conflict);
+			target.clear(jumpDepth);
+		}
+		return null;
+	}
+
+	/* Stores the assignments at the given depths as a nogood
+	 *		Input:	The depths of the assignments	(BitSet conflict)
+	 */
+	private void learn(BitSet conflict)
+	{
+		int n = 0;
+		for(int d = conflict.nextSetBit(0); d >= 0; d = conflict.nextSetBit(d+1)) {
+			nogoodVars[n] = varOrder[d];
+			nogoodVals[n] = assignment[varOrder[d]];
+			n++;
+		}
+		nogoods.add(nogoodVars, nogoodVals, n);
+	}
+
+	/* Adds var=val to the assignment and applies the consistency-enforcing procedure, printing the branch if it fails; the caller
+	 * removes var=val again and undoes the domains to a mark taken beforehand
+	 *		Input:	Variable (index into vars)										(int var)
+	 *				Value															(int val)
+	 *				The number of variables assigned so far							(int depth)
+	 *
+	 *		Output:	True if the search can continue below var=val and false otherwise	(boolean)
+	 */
+	public boolean assign(int var, int val, int depth)
+	{
+		// Add var=val to the assignment and the current var to the variable order
+		assignment[var] = val;
+		assigned[var] = true;
+		varOrder[depth] = var;
+		if(backjump)
+			depthOf[var] = depth;
+		if(depth+1 > stats.maxDepth)
+			stats.maxDepth = depth+1;
+
+		// If the assignment is not consistent with the CSP, print the failed branch
+		if(!consistent(var)) {
+			if(backjump && conflictVar != var)
+				conflicts[var].set(depthOf[conflictVar]);
+			return fail(depth);
+		}
+
+		// If var=val completes a learned nogood, print the failed branch
+		if(nogoods != null && checkNogoods(var, depth, false))
+			return fail(depth);
+
+		// Use forward-checking (and arc consistency for ac3) and adjust the domains of the variables
+		if(type != NONE)
+		{
+			long time = timed ? System.nanoTime() : 0;
+			int mark = domains.mark();
+			boolean wipeout = adjustVarDomains(var);
+			int fcMark = domains.mark();
+			if(!wipeout && type == AC3)
+				wipeout = arcConsistency(var);
+			int acMark = domains.mark();
+			if(backjump)
+				wipeout = recordPruning(var, depth, mark, fcMark, wipeout);
+
+			// Count the values removed (values that nogoods rule out count as forward checking)
+			stats.fcPruned += fcMark - mark + domains.mark() - acMark;
+			stats.acPruned += acMark - fcMark;
+			if(timed)
+				stats.propagationTime += System.nanoTime() - time;
+
+			// If a variable has no values remaining in its domain, the assignment cannot be a solution (skip backtracking with var=val)
+			if(wipeout)
+				return fail(depth);
+		}
+		return true;
+	}
+
+	/* Prints a branch that failed after a variable was assigned, reports the constraint behind the failure to the variable
+	 * ordering and starts a restart once the run has failed as many times as the restart policy allows
+	 *		Input:	The number of variables assigned before the failed one	(int depth)
+	 *
+	 *		Output:	False, so that the caller can return it					(boolean)
+	 */
+	private boolean fail(int depth)
+	{
+		ordering.failed(failedCon);
+		stats.failures++;
+		if(++failures == failLimit)
+			restarting = true;
+		branch(depth+1, false);
+		return false;
+	}
+
+	/* Records which depths removed values from the domains after var=val is propagated and, if a domain was emptied, adds the
+	 * reasons for it to the conflict set of var; values that ac3 removes may depend on any earlier assignment, so every
+	 * depth up to var=val is recorded for them
+	 *		Input:	Variable (index into vars) that was just assigned				(int var)
+	 *				The number of variables assigned so far							(int depth)
+	 *				Mark taken before forward checking								(int mark)
+	 *				Mark taken after forward checking (before ac3)					(int fcMark)
+	 *				True if propagating var=val emptied a domain					(boolean wipeout)
+	 *
+	 *		Output:	True if a domain is empty, including once the nogoods are applied	(boolean)
+	 */
+	private boolean recordPruning(int var, int depth, int mark, int fcMark, boolean wipeout)
+	{
+		for(int t = mark; t < fcMark; t++)
+			pastFc[domains.trailVar(t)].set(depth);
+		for(int t = fcMark; t < domains.mark(); t++)
+			pastFc[domains.trailVar(t)].set(0, depth+1);
+
+		// The emptied variable lost its values to the assignments recorded for it
+		if(wipeout) {
+			conflicts[var].or(pastFc[wipeoutVar]);
+			conflicts[var].clear(depth, csp.size()+1);
+			return true;
+		}
+
+		// Remove the values that a learned nogood rules out
+		return nogoods != null && checkNogoods(var, depth, true);
+	}
+
+	/* Checks the learned nogoods that var appears in against the assignment; a nogood that var=val completes is a conflict, and
+	 * when pruning, a nogood with a single unassigned variable left has its value removed from the domain of that variable
+	 *		Input:	Variable (index into vars) that was just assigned						(int var)
+	 *				The number of variables assigned so far									(int depth)
+	 *				True to remove the values that nogoods rule out (forward checking)		(boolean prune)
+	 *
+	 *		Output:	True if a nogood is completed or a domain is emptied and false otherwise	(boolean)
+	 */
+	private boolean checkNogoods(int var, int depth, boolean prune)
+	{
+		for(int i = 0; i < nogoods.occurrences(var); i++)
+		{
+			int slot = nogoods.slot(var, i);
+			if(slot < 0)
+				continue;
+			int[] ngVars = nogoods.vars(slot), ngVals = nogoods.vals(slot);
+
+			// Find the single unassigned variable of the nogood, if the assigned ones all match it
+			int free = -1;
+			boolean holds = true;
+			for(int j = 0; j < ngVars.length && holds; j++) {
+				if(!assigned[ngVars[j]]) {
+					if(!prune || free >= 0)
+						holds = false;
+					free = j;
+				}
+				else if(assignment[ngVars[j]] != ngVals[j])
+					holds = false;
+			}
+			if(!holds)
+				continue;
+
+			// Every assignment of the nogood is made, so var=val conflicts with the others
+			if(free < 0) {
+				failedCon = null;
+				for(int x : ngVars)
+					if(x != var)
+						conflicts[var].set(depthOf[x]);
+				return true;
+			}
+
+			// Otherwise the value of the unassigned variable is ruled out by the rest of the nogood
+			int y = ngVars[free];
+			if(domains.removeValue(y, ngVals[free]) > 0)
+			{
+				for(int x : ngVars)
+					if(x != y)
+						pastFc[y].set(depthOf[x]);
+				if(domains.size(y) == 0) {
+					failedCon = null;
+					conflicts[var].or(pastFc[y]);
+					conflicts[var].clear(depth, csp.size()+1);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/* Counts a node of the search and checks the node and time limits (the clock is only read every clockMask+1 nodes, which is
+	 * also when the progress is reported)
+	 *		Output:	True if the search can visit the node and false otherwise	(boolean)
+	 */
+	protected boolean visit()
+	{
+		nodes++;
+		if((limits.maxNodes > 0 && nodes > limits.maxNodes) || ((nodes & clockMask) == 0 && outOfTime())) {
+			limitReached = true;
+			return false;
+		}
+		return true;
+	}
+
+	/* Reads the clock, reports the progress of the search if it is due and checks the time limit
+	 *		Output:	True if the search has run out of time and false otherwise	(boolean)
+	 */
+	private boolean outOfTime()
+	{
+		long now = System.nanoTime();
+		if(now - lastClock > 10000000L)
+			clockMask >>= 1;
+		else if(now - lastClock < 1000000L && clockMask < 1023)
+			clockMask = clockMask << 1 | 1;
+		lastClock = now;
+		if(onProgress != null && now >= nextProgress) {
+			nextProgress = now + progressInterval;
+			onProgress.accept(getStats());
+		}
+		return now > deadline;
+	}
+
+	/* Determines if the search should stop early
+	 *		Output:	True if a limit was reached or the search was cancelled	(boolean)
+	 */
+	public boolean stopped()
+	{
+		return limitReached || restarting || cancelled();
+	}
+
+	/* Determines if the search was cancelled from outside; overridden by searches that run alongside others
+	 *		Output:	True if the search was cancelled	(boolean)
+	 */
+	protected boolean cancelled()
+	{
+		return false;
+	}
+
+	/* Reports a branch that ended in a solution or a failure to the trace with its number
+	 *		Input:	The number of variables in the branch					(int depth)
+	 *				True if the branch is a solution and false if it failed	(boolean solution)
+	 */
+	protected void branch(int depth, boolean solution)
+	{
+		trace.branch(iteration, varOrder, assignment, depth, solution);
+		if(iteration++ == limits.maxBranches)
+			limitReached = true;
+	}
+
+	/* Determines if the current assignment is complete (is a solution to the CSP), assuming that it is consistent already
+	 *		Input:	The number of variables assigned so far						(int depth)
+	 *
+	 *		Output:	True if the assignment is complete and false otherwise		(boolean)
+	 */
+	public boolean complete(int depth)
+	{
+		// Every variable is assigned exactly once along a branch
+		return depth == csp.size();
+	}
+
+	/* Determines if the current assignment is consistent with the CSP after var is assigned, assuming that it was consistent before;
+	 * only the constraints of var are checked unless verify is set
+	 *		Input:	Variable (index into vars) that was just assigned			(int var)
+	 *
+	 *		Output:	True if the assignment is consistent and false otherwise	(boolean)
+	 */
+	public boolean consistent(int var)
+	{
+		boolean result = true;
+
+		// Loop through the constraints of var
+		for(Constraint con : csp.adjacent[var])
+		{
+			// Make sure both variables of the constraint are assigned in the assignment and that the constraint is satisfied
+			if(!assigned[con.var1] || !assigned[con.var2])
+				continue;
+			stats.constraintChecks++;
+			if(!con.satisfied(assignment[con.var1], assignment[con.var2])) {
+				conflictVar = con.other(var);
+				failedCon = con;
+				result = false;
+				break;
+			}
+		}
+
+		// In verify mode, compare against checking every constraint
+		if(verify && result != consistent())
+			throw new IllegalStateException("Incremental consistency check disagrees with the full check after assigning " + csp.name(var));
+
+		return result;
+	}
+
+	/* Determines if the current assignment is consistent with the CSP by checking every constraint; used by the --verify option
+	 *		Output:	True if the assignment is consistent and false otherwise	(boolean)
+	 */
+	public boolean consistent()
+	{
+		// Loop through all constraints
+		for(Constraint con : csp.cons)
+		{
+			// Make sure both variables of the constraint are assigned in the assignment and that the constraint is satisfied
+			if(assigned[con.var1] && assigned[con.var2] && !con.satisfied(assignment[con.var1], assignment[con.var2]))
+				return false;
+		}
+		return true;
+	}
+
+	/* Chooses the next unassigned variable to be assigned with the variable ordering
+	 *		Output:	The index of the variable chosen (in vars)					(int)
+	 */
+	public int nextVar()
+	{
+		if(!timed)
+			return ordering.nextVar(this);
+		long time = System.nanoTime();
+		int var = ordering.nextVar(this);
+		stats.nextVarTime += System.nanoTime() - time;
+		return var;
+	}
+
+	/* Returns the number of constraints of the given variable with unassigned variables; used by the variable orderings
+	 *		Input:	Variable (index into vars)	(int var)
+	 *
+	 *		Output:	The number of constraints	(int)
+	 */
+	public int countConstraints(int var)
+	{
+		int count = 0;
+
+		// Loop through the constraints of var
+		for(Constraint con : csp.adjacent[var])
+		{
+			// Increment count whenever var appears in a constraint with an unassigned variable
+			if(!assigned[con.other(var)])
+				count++;
+		}
+		
+		// Return the count
+		return count;
+	}
+
+	/* Orders the values of the given variable from least to most constraining (ties are broken by preferring the smaller value);
+	 * the order is computed once per node since the domains do not change while the values of var are tried
+	 *		Input:	Variable (index into vars)									(int var)
+	 *				The number of variables assigned so far						(int depth)
+	 *
+	 *		Output:	The ordered values, in the first domains.size(var) slots	(int[])
+	 */
+	public int[] orderValues(int var, int depth)
+	{
+		long time = timed ? System.nanoTime() : 0;
+		int domainSize = domains.size(var);
+		long[] keys = valueKeys[depth];
+
+		// Sum the size of the domains of the other unassigned variables
+		int total = 0;
+		for(int j = 0; j < csp.size(); j++)
+			if(!assigned[j] && j != var)
+				total += domains.size(j);
+
+		// Loop through all values
+		assigned[var] = true;
+		for(int i = 0; i < domainSize; i++)
+		{
+			// Add var=val to the assignment
+			int val = domains.value(var, i);
+			assignment[var] = val;
+
+			// The number of values remaining for every unassigned variable once var=val is added is the total less what forward checking removes
+			int mark = domains.mark();
+			adjustVarDomains(var);
+			int numValuesRemaining = total - (domains.mark() - mark);
+			domains.undo(mark);
+
+			// Sort by the most values remaining first and then by the smallest value
+			keys[i] = ((long) (Integer.MAX_VALUE - numValuesRemaining) << 32) | ((long) val - Integer.MIN_VALUE);
+		}
+		assigned[var] = false;
+
+		// Sort the values
+		Arrays.sort(keys, 0, domainSize);
+		int[] order = valueOrder[depth];
+		for(int i = 0; i < domainSize; i++)
+			order[i] = (int) ((keys[i] & 0xFFFFFFFFL) + Integer.MIN_VALUE);
+		if(timed)
+			stats.orderValuesTime += System.nanoTime() - time;
+
+		// Return the ordered values
+		return order;
+	}
+
+	/* Adjusts the domain of all unassigned variables after a var=val change is applied (forward checking); the
+	 * values removed are recorded on the trail of the domain store, so the caller undoes them with domains.undo
+	 *		Input:	Variable (index into vars) that was changed					(int changedVar)
+	 *
+	 *		Output:	True if a variable has no values remaining in its domain	(boolean)
+	 */
+	public boolean adjustVarDomains(int changedVar)
+	{
+		boolean wipeout = false;
+		int changeVal = assignment[changedVar];
+
+		// Loop through the constraints that the changed variable is a part of
+		for(Constraint con : csp.adjacent[changedVar])
+		{
+			int other = con.other(changedVar);
+
+			// Only adjust the domains of unassigned variables
+			if(!assigned[other])
+			{
+				// Remove the values of the other variable for which 'other op changeVal' does not hold
+				switch(con.opFrom(other)) {
+					case EQ:	domains.removeAllBut(other, changeVal);		break;
+					case NE:	domains.removeValue(other, changeVal);		break;
+					case GT:	domains.removeAtMost(other, changeVal);		break;
+					case LT:	domains.removeAtLeast(other, changeVal);	break;
+				}
+
+				if(domains.size(other) == 0 && !wipeout) {
+					wipeoutVar = other;
+					failedCon = con;
+					wipeout = true;
+				}
+			}
+		}
+
+		// Return whether forward checking emptied a domain
+		return wipeout;
+	}
+
+	/* Propagates a var=val change through the whole constraint network (AC-3) once forward checking has been applied,
+	 * so that every value left in the domain of an unassigned variable has a support in each of its neighbours;
+	 * the values removed are recorded on the trail of the domain store
+	 *		Input:	Variable (index into vars) that was changed					(int changedVar)
+	 *
+	 *		Output:	True if a variable has no values remaining in its domain	(boolean)
+	 */
+	public boolean arcConsistency(int changedVar)
+	{
+		// Forward checking already made the neighbours of changedVar consistent with it, so start from their arcs
+		arcHead = 0;
+		arcCount = 0;
+		for(Constraint con : csp.adjacent[changedVar]) {
+			int other = con.other(changedVar);
+			if(!assigned[other])
+				queueArcs(other);
+		}
+
+		// Revise arcs until none are left
+		boolean wipeout = false;
+		while(arcCount > 0)
+		{
+			int arc = arcQueue[arcHead];
+			arcQueued[arc] = false;
+			arcHead = (arcHead + 1) % arcQueue.length;
+			arcCount--;
+
+			if(wipeout)
+				continue;
+
+			// Remove the values of var that have no support in the domain of other
+			Constraint con = csp.cons[arc / 2];
+			int var = arc % 2 == 0 ? con.var1 : con.var2;
+			int other = con.other(var);
+			if(domains.removeUnsupported(var, con.opFrom(var), other) > 0)
+			{
+				// If the domain of var is empty there is no need to keep going, otherwise its neighbours need to be revised
+				if(domains.size(var) == 0) {
+					wipeoutVar = var;
+					failedCon = con;
+					wipeout = true;
+				}
+				else
+					queueArcs(var);
+			}
+		}
+
+		// Return whether arc consistency emptied a domain
+		return wipeout;
+	}
+
+	/* Adds the arcs of every unassigned neighbour of a variable (that the neighbour is revised against it) to the ac3 work queue
+	 *		Input:	Variable (index into vars) whose domain changed	(int var)
+	 */
+	public void queueArcs(int var)
+	{
+		for(Constraint con : csp.adjacent[var])
+		{
+			int other = con.other(var);
+			if(other != var && !assigned[other])
+			{
+				int arc = 2 * con.index + (other == con.var1 ? 0 : 1);
+				if(!arcQueued[arc]) {
+					arcQueued[arc] = true;
+					arcQueue[(arcHead + arcCount) % arcQueue.length] = arc;
+					arcCount++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/* TextTrace.java
+ *
+ *		Description:	Writes a trace as text through a large buffer: every branch as a numbered line of
+ *							var=val pairs ending in 'failure' or 'solution' (full level) or a single summary
+ *							line once the search is over (summary level).
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+public class TextTrace implements TraceSink {
+
+	private final CSP csp;
+	private final int level;
+	private final PrintWriter out;
+
+	/* Creates a text trace
+	 *		Input:	The CSP that is searched (for the variable names)	(CSP csp)
+	 *				The trace level (SUMMARY or FULL)					(int level)
+	 *				Where the trace is written							(OutputStream stream)
+	 */
+	public TextTrace(CSP csp, int level, OutputStream stream)
+	{
+		this.csp = csp;
+		this.level = level;
+		this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream), 1 << 16));
+	}
+
+	public boolean wantsBranches()
+	{
+		return level == FULL;
+	}
+
+	public synchronized void branch(long number, int[] varOrder, int[] assignment, int depth, boolean solution)
+	{
+		if(level != FULL)
+			return;
+
+		// Print the number of the branch and then each var=val pair in the order they were assigned
+		out.print(number);
+		out.print(". ");
+		for(int i = 0; i < depth; i++) {
+			out.print(csp.name(varOrder[i]));
+			out.print('=');
+			out.print(assignment[varOrder[i]]);
+			if(i < depth-1)
+				out.print(", ");
+		}
+		out.println(solution ? "  solution" : "  failure");
+	}
+
+	public synchronized void finish(long nodes, long branches, long solutions, boolean limitReached, long elapsed)
+	{
+		if(level == SUMMARY)
+			out.println(summary(nodes, branches, solutions, limitReached, elapsed));
+		out.flush();
+	}
+
+	/* Returns the summary line of a search
+	 *		Input:	The number of nodes visited							(long nodes)
+	 *				The number of branches reached						(long branches)
+	 *				The number of solutions found						(long solutions)
+	 *				True if the search was stopped by one of its limits	(boolean limitReached)
+	 *				The time the search took in nanoseconds				(long elapsed)
+	 *
+	 *		Output:	The summary											(String)
+	 */
+	public static String summary(long nodes, long branches, long solutions, boolean limitReached, long elapsed)
+	{
+		return nodes + " nodes, " + branches + " branches, " + solutions + " solutions" + (limitReached ? " (limit reached)" : "") +
+				String.format(Locale.ROOT, " in %.3f ms", elapsed / 1e6);
+	}
+
+	/* Writes out anything buffered so far (the output stream itself is left open) */
+	public synchronized void close()
+	{
+		out.flush();
+	}
+}
@@ -0,0 +1,73 @@
+/* TraceSink.java
+ *
+ *		Description:	Where a search reports the branches it reaches (the failures and the solutions) and,
+ *							once it is over, a summary of the search. A sink may be called by several
+ *							threads at once (by a parallel search), so implementations need to be
+ *							thread-safe.
+ */
+
+public interface TraceSink {
+
+	// The trace levels: nothing, only the summary once the search is over, or every branch
+	int OFF = 0, SUMMARY = 1, FULL = 2;
+
+	// A sink that drops everything, so that a search without a trace does not pay for one
+	TraceSink NONE = new TraceSink() {
+		public boolean wantsBranches()
+		{
+			return false;
+		}
+
+		public void branch(long number, int[] varOrder, int[] assignment, int depth, boolean solution)
+		{
+		}
+
+		public void finish(long nodes, long branches, long solutions, boolean limitReached, long elapsed)
+		{
+		}
+	};
+
+	/* Determines if the sink does anything with the branches, so that the search can skip reporting them
+	 *		Output:	True if branches are traced and false otherwise	(boolean)
+	 */
+	boolean wantsBranches();
+
+	/* Reports a branch that ended in a failure or a solution
+	 *		Input:	The number of the branch										(long number)
+	 *				The order that the variables were assigned in					(int[] varOrder)
+	 *				The assignment for the variables								(int[] assignment)
+	 *				The number of variables in the branch (the first in varOrder)	(int depth)
+	 *				True if the branch is a solution and false if it failed		(boolean solution)
+	 */
+	void branch(long number, int[] varOrder, int[] assignment, int depth, boolean solution);
+
+	/* Reports that the search is over and writes out anything that is still buffered
+	 *		Input:	The number of nodes visited							(long nodes)
+	 *				The number of branches reached						(long branches)
+	 *				The number of solutions found						(long solutions)
+	 *				True if the search was stopped by one of its limits	(boolean limitReached)
+	 *				The time the search took in nanoseconds				(long elapsed)
+	 */
+	void finish(long nodes, long branches, long solutions, boolean limitReached, long elapsed);
+
+	/* Releases anything the sink holds on to (such as an open file) */
+	default void close()
+	{
+	}
+
+	/* Returns the trace level with the given name
+	 *		Input:	Name of the level (off, summary or full)		(String level)
+	 *
+	 *		Output:	The level or -1 if the name is not valid		(int)
+	 */
+	static int level(String level)
+	{
+		if(level.equals("off"))
+			return OFF;
+		else if(level.equals("summary"))
+			return SUMMARY;
+		else if(level.equals("full"))
+			return FULL;
+		return -1;
+	}
+}
@@ -0,0 +1,42 @@
+/* VarOrdering.java
+ *
+ *		Description:	A strategy for choosing the next variable to assign. The solver tells the strategy
+ *							about every failed branch so that strategies that learn from failures (such as
+ *							dom/wdeg) can use them. A strategy belongs to one solver and keeps whatever it
+ *							learned across restarts.
+ */
+
+import java.util.Random;
+
+public interface VarOrdering {
+
+	/* Chooses the next unassigned variable to be assigned
+	 *		Input:	The solver whose domains and assignment are used	(Solver solver)
+	 *
+	 *		Output:	The index of the variable chosen (in vars)			(int)
+	 */
+	int nextVar(Solver solver);
+
+	/* Reports a failed branch
+	 *		Input:	The constraint that was broken or that emptied a domain, or null if there is none	(Constraint con)
+	 */
+	default void failed(Constraint con)
+	{
+	}
+
+	/* Returns the ordering with the given name
+	 *		Input:	Name of the ordering (mrv or wdeg)								(String name)
+	 *				The CSP that is searched										(CSP csp)
+	 *				Where ties are broken at random, or null to break them by name	(Random random)
+	 *
+	 *		Output:	The ordering or null if the name is not valid					(VarOrdering)
+	 */
+	static VarOrdering named(String name, CSP csp, Random random)
+	{
+		if(name.equals("mrv"))
+			return new MrvOrdering(random);
+		else if(name.equals("wdeg"))
+			return new DomWdegOrdering(csp, random);
+		return null;
+	}
+}
@@ -0,0 +1,284 @@
+/* Benchmark.java
+ *
+ *		Compile with: 	'javac Benchmark.java'
+ *		Run with: 		'java Benchmark [options]'
+ *
+ *		Options:		--warmup <n>		The number of untimed runs of each benchmark (3)
+ *						--iterations <n>	The number of timed runs of each benchmark (5)
+ *						--max-length <n>	The length limit of the new clauses of each resolution (3)
+ *						--out <f>			Write the score of each benchmark to the file f
+ *						--baseline <f>		Compare the scores with the ones in the file f and exit with
+ *											status 1 if any of them dropped by more than the tolerance
+ *						--tolerance <p>		The share that a score may drop by (0.25)
+ *
+ *		Description:	Measures the prover on seeded kbs from KbGenerator: a pigeonhole kb, a random 3-CNF
+ *							kb at the phase transition and an implication chain. Each kb is read from its
+ *							file on its own (reporting clauses per second) and read and proved end to end
+ *							with the exhaustive and given strategies (reporting resolvents and new clauses
+ *							per second) and with cdcl (reporting runs per second). The hot paths of
+ *							resolution (making the resolvents of a clause, the check for a clause that is
+ *							always true and the check for a clause already in the store) are timed on their
+ *							own on the clauses of an exhaustive run (reporting resolvents or operations per
+ *							second). Every resolution drops the new clauses longer than the length limit, so
+ *							that the runs are bounded and do the same work each time.
+ *							Each benchmark also reports the bytes it allocates per unit.
+ */
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+public class Benchmark {
+
+	// The number of operations that make up one run of a hot path benchmark
+	private static final int OPS = 200000;
+
+	private static int warmup = 3, iterations = 5, maxLength = 3;
+
+	// The score of each benchmark, in the order they ran
+	private static final LinkedHashMap<String, Double> scores = new LinkedHashMap<String, Double>();
+
+	// The new clauses added by the runs of the current benchmark, and the results of the hot paths (so that they are used)
+	private static long added, sink;
+
+	/* Runs a benchmark: the untimed runs and then the timed ones, printing its score (units per second), the new clauses
+	 * added per second if it adds any and its allocation
+	 *		Input:	Name of the benchmark								(String name)
+	 *				Unit counted by the benchmark (plural)				(String unit)
+	 *				A run of the benchmark that returns its unit count	(LongSupplier run)
+	 */
+	private static void measure(String name, String unit, LongSupplier run)
+	{
+		for(int i = 0; i < warmup; i++)
+			run.getAsLong();
+
+		added = 0;
+		long units = 0, bytes = allocatedBytes(), start = System.nanoTime();
+		for(int i = 0; i < iterations; i++)
+			units += run.getAsLong();
+		long elapsed = System.nanoTime() - start;
+		bytes = allocatedBytes() - bytes;
+
+		double score = units / (elapsed / 1e9);
+		scores.put(name, score);
+		System.out.printf("%-34s %14.0f %-14s %12s %10.1f bytes/%s%n", name, score, unit + "/s",
+				added > 0 ? String.format("%.0f", added / (elapsed / 1e9)) + " clauses/s" : "",
+				bytes < 0 ? Double.NaN : (double) bytes / Math.max(units, 1), unit.substring(0, unit.length()-1));
+	}
+
+	/* Returns the bytes allocated by the current thread so far
+	 *		Output:	The number of bytes or a negative number if the JVM does not count them	(long)
+	 */
+	private static long allocatedBytes()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/* Reads a kb file into a clause store, the way Main does
+	 *		Input:	Path to the kb file						(String kbFile)
+	 *				Filled with the number of goal clauses	(int[] numGoal)
+	 *
+	 *		Output:	The store								(ClauseStore)
+	 */
+	private static ClauseStore load(String kbFile, int[] numGoal)
+	{
+		ArrayList<String[]> lines = readLines(kbFile);
+		Literals literals = Main.intern(lines);
+		numGoal[0] = lines.get(lines.size()-1).length;
+		return Main.store(Main.clauses(lines, literals, true), literals);
+	}
+
+	/* Benchmarks one kb: reading it, proving it end to end with each strategy and the hot paths
+	 *		Input:	Name of the kb				(String name)
+	 *				Path to the kb file			(String kbFile)
+	 */
+	private static void benchmark(String name, String kbFile)
+	{
+		int[] numGoal = new int[1];
+		Literals literals = Main.intern(readLines(kbFile));
+		Trace trace = new Trace(Trace.OFF, false, literals, OutputStream.nullOutputStream());
+
+		measure(name + " read", "clauses", () -> load(kbFile, numGoal).size());
+
+		// Prove the kb end to end with a length limit so that the clauses that can be made are bounded (resolution without it
+		// runs out of memory on all but the smallest of these kbs)
+		for(String strategy : new String[] {"exhaustive", "given"})
+			measure(name + " " + strategy, "resolvents", () -> {
+				ClauseStore store = load(kbFile, numGoal);
+				int numKb = store.size();
+				Resolution resolution = new Resolution(store, literals, trace);
+				resolution.setLimits(0, maxLength, 0);
+				if(strategy.equals("given"))
+					resolution.givenClause(numKb - numGoal[0]);
+				else
+					resolution.exhaustive();
+				added += store.retained() - numKb;
+				return resolution.getGenerated();
+			});
+		measure(name + " cdcl", "runs", () -> {
+			new Cdcl(load(kbFile, numGoal), literals, trace).solve();
+			return 1;
+		});
+
+		// Time the hot paths on the clauses of an exhaustive run
+		ClauseStore store = load(kbFile, numGoal);
+		Resolution resolution = new Resolution(store, literals, trace);
+		resolution.setLimits(0, maxLength, 0);
+		resolution.exhaustive();
+		ArrayList<int[]> kept = new ArrayList<int[]>();
+		ArrayList<Integer> indices = new ArrayList<Integer>();
+		for(int i = 0; i < store.size(); i++)
+			if(!store.isRetired(i)) {
+				kept.add(store.get(i));
+				indices.add(i);
+			}
+
+		measure(name + " make resolvents", "resolvents", () -> {
+			long count = 0;
+			for(int c = 0; count < OPS && c < OPS; c++)
+				count += resolution.makeResolvents(indices.get(c % indices.size()));
+			return count;
+		});
+
+		// The literals of two clauses side by side, as a resolvent is before the check
+		int[][] merged = new int[kept.size()][];
+		for(int c = 0; c < kept.size(); c++) {
+			int[] a = kept.get(c), b = kept.get((c+1) % kept.size());
+			merged[c] = Arrays.copyOf(a, a.length + b.length);
+			System.arraycopy(b, 0, merged[c], a.length, b.length);
+		}
+		measure(name + " always true", "ops", () -> {
+			for(int i = 0; i < OPS; i++)
+				if(Resolution.alwaysTrue(merged[i % merged.length], merged[i % merged.length].length))
+					sink++;
+			return OPS;
+		});
+
+		// Each clause, which is found, and each clause without its first literal, which is mostly not
+		int[][] lookups = new int[2 * kept.size()][];
+		for(int c = 0; c < kept.size(); c++) {
+			lookups[2*c] = kept.get(c).clone();
+			lookups[2*c + 1] = Arrays.copyOfRange(kept.get(c), Math.min(1, kept.get(c).length), kept.get(c).length);
+		}
+		measure(name + " contains", "ops", () -> {
+			for(int i = 0; i < OPS; i++)
+				if(store.contains(lookups[i % lookups.length]))
+					sink++;
+			return OPS;
+		});
+	}
+
+	/* Reads the lines of a kb file
+	 *		Input:	Path to the kb file		(String kbFile)
+	 *
+	 *		Output:	The lines				(ArrayList<String[]>)
+	 */
+	private static ArrayList<String[]> readLines(String kbFile)
+	{
+		try {
+			return Main.readLines(kbFile);
+		} catch(FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/* Writes a kb to a file */
+	private interface Generator {
+		void write(String kbFile) throws IOException;
+	}
+
+	/* Compares the scores with the ones in a baseline file (lines of 'name<tab>score')
+	 *		Input:	Path to the baseline file					(String path)
+	 *				The share that a score may drop by			(double tolerance)
+	 *
+	 *		Output:	True if no score dropped by more than that	(boolean)
+	 */
+	private static boolean compare(String path, double tolerance) throws IOException
+	{
+		boolean ok = true;
+		try(BufferedReader in = new BufferedReader(new FileReader(path)))
+		{
+			for(String line = in.readLine(); line != null; line = in.readLine())
+			{
+				String[] parts = line.split("\t");
+				Double score = parts.length == 2 ? scores.get(parts[0]) : null;
+				if(score == null)
+					continue;
+				double base = Double.parseDouble(parts[1]);
+				double change = score / base - 1;
+				System.out.printf("%-34s %+7.1f%%%s%n", parts[0], 100 * change, change < -tolerance ? "  REGRESSION" : "");
+				if(change < -tolerance)
+					ok = false;
+			}
+		}
+		return ok;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		// Read the options
+		String out = null, baseline = null;
+		double tolerance = 0.25;
+		try {
+			for(int i = 0; i < args.length; i++) {
+				if(args[i].equals("--warmup") && i+1 < args.length)
+					warmup = Integer.parseInt(args[++i]);
+				else if(args[i].equals("--iterations") && i+1 < args.length)
+					iterations = Integer.parseInt(args[++i]);
+				else if(args[i].equals("--max-length") && i+1 < args.length)
+					maxLength = Integer.parseInt(args[++i]);
+				else if(args[i].equals("--out") && i+1 < args.length)
+					out = args[++i];
+				else if(args[i].equals("--baseline") && i+1 < args.length)
+					baseline = args[++i];
+				else if(args[i].equals("--tolerance") && i+1 < args.length)
+					tolerance = Double.parseDouble(args[++i]);
+				else {
+					System.out.println(args[i] + " is not a valid option.");
+					return;
+				}
+			}
+		} catch(NumberFormatException e) {
+			System.out.println(e.getMessage() + " is not a valid number.");
+			return;
+		}
+
+		// The seeded kbs
+		LinkedHashMap<String, Generator> kbs = new LinkedHashMap<String, Generator>();
+		kbs.put("pigeonhole-4", kb -> KbGenerator.pigeonhole(4, 1, kb));
+		kbs.put("random3cnf-20", kb -> KbGenerator.random3cnf(20, 4.26, 1, kb));
+		kbs.put("chain-100", kb -> KbGenerator.chain(100, 1, kb));
+
+		File dir = Files.createTempDirectory("kb-benchmark").toFile();
+		for(Map.Entry<String, Generator> kb : kbs.entrySet())
+		{
+			File kbFile = new File(dir, kb.getKey() + ".kb");
+			try {
+				kb.getValue().write(kbFile.getPath());
+				benchmark(kb.getKey(), kbFile.getPath());
+			} finally {
+				kbFile.delete();
+			}
+		}
+		dir.delete();
+
+		// Save the scores
+		if(out != null)
+			try(PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+				for(Map.Entry<String, Double> score : scores.entrySet())
+					writer.println(score.getKey() + "\t" + score.getValue());
+			}
+
+		// Fail if a score dropped below the baseline
+		if(baseline != null && !compare(baseline, tolerance))
+			System.exit(1);
+	}
+}
@@ -0,0 +1,758 @@
+/* Cdcl.java
+ *
+ *		Description:	Decides if the clauses of a kb (with the negated goal) are contradictory with a
+ *							conflict-driven clause learning SAT solver instead of saturating them. Unit
+ *							propagation watches two literals of each clause. The solver branches on the
+ *							unassigned variable with the most activity (bumped for every variable in a
+ *							conflict and decayed after it, VSIDS), giving it the value it had last.
+ *							Every conflict is turned into a learned clause at its first unique
+ *							implication point, the search restarts after a luby sequence of conflicts and
+ *							the learned clauses that span the most decision levels are deleted when there
+ *							are too many of them. With a proof, each learned clause records the clauses it
+ *							was resolved from, and once the empty clause is learned the learned clauses it
+ *							depends on are printed to the trace as resolution steps, numbered after the kb
+ *							clauses. With a time limit, the search stops once the time is up and the result
+ *							is Unknown.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class Cdcl {
+
+	// The conflicts in the unit of the luby restart sequence and the decay of the variable activity after a conflict
+	private static final int RESTART_UNIT = 100;
+	private static final double DECAY = 0.95;
+
+	private final ClauseStore kb;
+	private final Literals literals;
+	private final Trace trace;
+	private final int numVars, numInput;
+
+	// The clauses (the kb clauses first, at their index in the kb, then the learned ones) with their two watched literals
+	// first, whether each one is deleted and the number of decision levels of each learned one (0 for kb clauses)
+	private final ArrayList<int[]> clauses = new ArrayList<int[]>();
+	private boolean[] deleted = new boolean[16];
+	private int[] lbd = new int[16];
+	private int numLearned;
+
+	// The clauses watching each literal (at index(lit))
+	private final int[][] watch;
+	private final int[] watchSize;
+
+	// The value of each variable (1 true, -1 false, 0 unassigned), its decision level, the clause that implied it (-1 for
+	// a decision) and the value it had last
+	private final byte[] value;
+	private final int[] level, reason;
+	private final boolean[] phase;
+
+	// The assigned literals in order, the start of each decision level in it and the next literal to propagate
+	private final int[] trail;
+	private int trailSize, qhead;
+	private final int[] trailLim;
+	private int decisionLevel;
+
+	// The activity of each variable and a heap of the variables by activity (heapIndex is -1 for a variable not in it)
+	private final double[] activity;
+	private double varInc = 1;
+	private final int[] heap, heapIndex;
+	private int heapSize;
+
+	// The marks of conflict analysis (seenTop for the variables of decision level 0) and the literals being learned
+	private final boolean[] seen, seenTop;
+	private final int[] learnt;
+	private final int[] levelStamp;
+	private int stamp;
+
+	// Whether a proof is recorded (unless the trace is off), the clauses each learned clause was resolved from (the first
+	// clause, then the pivot variable and the clause of each step) and those of the empty clause
+	private final boolean proof;
+	private final ArrayList<int[]> chains = new ArrayList<int[]>();
+	private int[] emptyChain;
+	private int[] steps = new int[16];
+	private int numSteps;
+
+	// The statistics of the search
+	private long conflicts, decisions, propagations;
+
+	// The learned clauses allowed before the worst half of them are deleted
+	private double maxLearned;
+
+	// The time the search is limited to in ms (0 for no limit) and whether it was stopped by it
+	private long timeLimit;
+	private boolean stopped;
+
+	/* Creates a solver for the clauses of a kb
+	 *		Input:	The kb clauses (sorted)						(ClauseStore kb)
+	 *				The atoms of the kb							(Literals literals)
+	 *				Where the proof and the result are printed	(Trace trace)
+	 */
+	public Cdcl(ClauseStore kb, Literals literals, Trace trace)
+	{
+		this.kb = kb;
+		this.literals = literals;
+		this.trace = trace;
+		proof = trace.getLevel() != Trace.OFF;
+		numVars = literals.size();
+		numInput = kb.size();
+
+		watch = new int[2 * numVars][4];
+		watchSize = new int[2 * numVars];
+		value = new byte[numVars];
+		level = new int[numVars];
+		reason = new int[numVars];
+		phase = new boolean[numVars];
+		trail = new int[numVars];
+		trailLim = new int[numVars + 1];
+		activity = new double[numVars];
+		heap = new int[numVars];
+		heapIndex = new int[numVars];
+		seen = new boolean[numVars];
+		seenTop = new boolean[numVars];
+		learnt = new int[numVars];
+		levelStamp = new int[numVars + 1];
+		for(int v = 0; v < numVars; v++)
+			heapInsert(v);
+		maxLearned = Math.max(numInput / 3.0, 2000);
+	}
+
+	/* Limits the time of the search (no limit by default)
+	 *		Input:	The time in ms (0 for no limit)	(long timeLimit)
+	 */
+	public void setTimeLimit(long timeLimit)
+	{
+		this.timeLimit = timeLimit;
+	}
+
+	/* Returns the statistics of the search
+	 *		Output:	The conflicts, decisions, propagations and learned clauses		(String)
+	 */
+	public String statistics()
+	{
+		return conflicts + " conflicts, " + decisions + " decisions, " + propagations + " propagations, " + numLearned + " learned";
+	}
+
+	/* Searches for an assignment that makes every clause true, then prints the proof if there is none (unless the trace is
+	 * off) and Valid, or Failure if there is one (Unknown if the time ran out)
+	 *		Output:	True if the clauses are contradictory	(boolean)
+	 */
+	public boolean solve()
+	{
+		boolean contradiction = !search();
+		if(contradiction && proof)
+			printProof();
+		if(stopped)
+			trace.unknown();
+		else
+			trace.result(contradiction);
+		return contradiction;
+	}
+
+	/* Searches for an assignment that makes every clause true
+	 *		Output:	True if there is one (or the time ran out)	(boolean)
+	 */
+	private boolean search()
+	{
+		// Add the kb clauses without repeated literals; a clause that is always true is kept (for its index) but not watched
+		for(int c = 0; c < numInput; c++)
+		{
+			int[] clause = distinct(kb.get(c));
+			addClause(clause, 0);
+			if(clause.length > 1 && !alwaysTrue(clause))
+				attach(c);
+		}
+
+		// Assign the units at level 0, unless one contradicts an earlier one
+		for(int c = 0; c < numInput; c++)
+		{
+			int[] clause = clauses.get(c);
+			if(clause.length == 1 && litValue(clause[0]) < 0) {
+				analyzeFinal(c);
+				return false;
+			}
+			if(clause.length == 1 && litValue(clause[0]) == 0)
+				assign(clause[0], c);
+		}
+
+		long restarts = 0, nextRestart = RESTART_UNIT * luby(0);
+		long deadline = System.nanoTime() + timeLimit * 1000000;
+		while(true)
+		{
+			// Look at the time every 256 conflicts and decisions
+			if(timeLimit > 0 && ((conflicts + decisions) & 255) == 0 && System.nanoTime() > deadline) {
+				stopped = true;
+				return true;
+			}
+
+			int conflict = propagate();
+			if(conflict >= 0)
+			{
+				conflicts++;
+				if(decisionLevel == 0) {
+					analyzeFinal(conflict);
+					return false;
+				}
+
+				// Learn a clause that asserts its first literal once the search jumps back to the level of its second one
+				int size = analyze(conflict);
+				int backLevel = size > 1 ? level[var(learnt[1])] : 0;
+				backtrack(backLevel);
+				int c = addClause(Arrays.copyOf(learnt, size), levelCount(size));
+				numLearned++;
+				if(proof)
+					chains.add(Arrays.copyOf(steps, numSteps));
+				if(size > 1)
+					attach(c);
+				assign(learnt[0], c);
+
+				varInc /= DECAY;
+				if(numLearned > maxLearned) {
+					reduce();
+					maxLearned *= 1.1;
+				}
+			}
+			else
+			{
+				// Restart after the luby number of conflicts
+				if(conflicts >= nextRestart) {
+					backtrack(0);
+					nextRestart = conflicts + RESTART_UNIT * luby(++restarts);
+				}
+
+				// Every variable has a value that makes every clause true
+				int v = pickBranch();
+				if(v < 0)
+					return true;
+				decisions++;
+				trailLim[decisionLevel++] = trailSize;
+				assign(phase[v] ? v+1 : -(v+1), -1);
+			}
+		}
+	}
+
+	/* Propagates the literals assigned since the last call through the clauses watching their negation
+	 *		Output:	The index of a clause that is false or -1 if there is none	(int)
+	 */
+	private int propagate()
+	{
+		while(qhead < trailSize)
+		{
+			int falseLit = -trail[qhead++];
+			int w = index(falseLit);
+			int[] watchers = watch[w];
+			int n = watchSize[w], kept = 0;
+			propagations++;
+
+			for(int i = 0; i < n; i++)
+			{
+				int c = watchers[i];
+				if(deleted[c])
+					continue;
+				int[] clause = clauses.get(c);
+
+				// Keep the false literal second
+				if(clause[0] == falseLit) {
+					clause[0] = clause[1];
+					clause[1] = falseLit;
+				}
+
+				// The clause is true
+				if(litValue(clause[0]) > 0) {
+					watchers[kept++] = c;
+					continue;
+				}
+
+				// Watch another literal that is not false
+				int m = 2;
+				while(m < clause.length && litValue(clause[m]) < 0)
+					m++;
+				if(m < clause.length) {
+					clause[1] = clause[m];
+					clause[m] = falseLit;
+					addWatch(clause[1], c);
+					continue;
+				}
+
+				// The clause is unit or false
+				watchers[kept++] = c;
+				if(litValue(clause[0]) < 0) {
+					while(++i < n)
+						watchers[kept++] = watchers[i];
+					watchSize[w] = kept;
+					qhead = trailSize;
+					return c;
+				}
+				assign(clause[0], c);
+			}
+			watchSize[w] = kept;
+		}
+		return -1;
+	}
+
+	/* Finds the clause learned from a conflict at its first unique implication point (the only literal of the conflict
+	 * level left after resolving the conflict clause with the clauses that implied the others), recording its steps
+	 *		Input:	The index of the false clause								(int conflict)
+	 *
+	 *		Output:	The number of literals learned (into learnt, with the		(int)
+	 *				asserting literal first and one of the highest other
+	 *				level second)
+	 */
+	private int analyze(int conflict)
+	{
+		int size = 1, pathCount = 0, lit = 0, next = trailSize-1, c = conflict;
+		numSteps = 0;
+		step(conflict);
+
+		do {
+			int[] clause = clauses.get(c);
+			for(int q : clause)
+			{
+				int v = var(q);
+				if(q == lit || seen[v] || seenTop[v])
+					continue;
+				if(level[v] == 0) {
+					seenTop[v] = proof;
+					continue;
+				}
+				seen[v] = true;
+				bump(v);
+				if(level[v] == decisionLevel)
+					pathCount++;
+				else
+					learnt[size++] = q;
+			}
+
+			// Resolve with the clause that implied the last marked literal of the conflict level
+			while(!seen[var(trail[next])])
+				next--;
+			lit = trail[next--];
+			c = reason[var(lit)];
+			seen[var(lit)] = false;
+			if(--pathCount > 0) {
+				step(var(lit));
+				step(c);
+			}
+		} while(pathCount > 0);
+		learnt[0] = -lit;
+
+		// Resolve the literals of level 0 away with the clauses that implied them, latest first
+		if(proof)
+			resolveTop(trailLim[0]);
+
+		// Put a literal of the highest level other than the conflict level second
+		int highest = 1;
+		for(int i = 1; i < size; i++) {
+			seen[var(learnt[i])] = false;
+			if(level[var(learnt[i])] > level[var(learnt[highest])])
+				highest = i;
+		}
+		if(size > 1) {
+			int swap = learnt[1];
+			learnt[1] = learnt[highest];
+			learnt[highest] = swap;
+		}
+		return size;
+	}
+
+	/* Records the steps that resolve a false clause at level 0 down to the empty clause
+	 *		Input:	The index of the false clause	(int conflict)
+	 */
+	private void analyzeFinal(int conflict)
+	{
+		if(!proof)
+			return;
+		numSteps = 0;
+		step(conflict);
+		for(int q : clauses.get(conflict))
+			seenTop[var(q)] = true;
+		resolveTop(trailSize);
+		emptyChain = Arrays.copyOf(steps, numSteps);
+	}
+
+	/* Resolves the marked variables of level 0 away with the clauses that implied them, from the latest assigned to the
+	 * first (the clause of a variable only holds variables assigned before it)
+	 *		Input:	The end of level 0 in the trail		(int end)
+	 */
+	private void resolveTop(int end)
+	{
+		for(int i = end-1; i >= 0; i--)
+		{
+			int v = var(trail[i]);
+			if(!seenTop[v])
+				continue;
+			seenTop[v] = false;
+			step(v);
+			step(reason[v]);
+			for(int q : clauses.get(reason[v]))
+				if(var(q) != v)
+					seenTop[var(q)] = true;
+		}
+	}
+
+	/* Adds an entry to the steps of the clause being learned
+	 *		Input:	A clause index or pivot variable	(int entry)
+	 */
+	private void step(int entry)
+	{
+		if(!proof)
+			return;
+		if(numSteps == steps.length)
+			steps = Arrays.copyOf(steps, 2 * numSteps);
+		steps[numSteps++] = entry;
+	}
+
+	/* Returns the number of decision levels of the literals being learned
+	 *		Input:	The number of literals		(int size)
+	 *
+	 *		Output:	The number of levels		(int)
+	 */
+	private int levelCount(int size)
+	{
+		stamp++;
+		int count = 0;
+		for(int i = 0; i < size; i++)
+			if(levelStamp[level[var(learnt[i])]] != stamp) {
+				levelStamp[level[var(learnt[i])]] = stamp;
+				count++;
+			}
+		return count;
+	}
+
+	/* Unassigns the variables of the levels above a level, saving their values
+	 *		Input:	The level to go back to		(int target)
+	 */
+	private void backtrack(int target)
+	{
+		if(decisionLevel <= target)
+			return;
+		for(int i = trailSize-1; i >= trailLim[target]; i--)
+		{
+			int v = var(trail[i]);
+			phase[v] = value[v] > 0;
+			value[v] = 0;
+			reason[v] = -1;
+			if(heapIndex[v] < 0)
+				heapInsert(v);
+		}
+		trailSize = qhead = trailLim[target];
+		decisionLevel = target;
+	}
+
+	/* Returns the unassigned variable with the most activity
+	 *		Output:	The variable or -1 if every variable is assigned	(int)
+	 */
+	private int pickBranch()
+	{
+		while(heapSize > 0)
+		{
+			int v = heapRemoveMax();
+			if(value[v] == 0)
+				return v;
+		}
+		return -1;
+	}
+
+	/* Makes a literal true
+	 *		Input:	The literal									(int lit)
+	 *				The clause that implied it (-1 for a decision)	(int c)
+	 */
+	private void assign(int lit, int c)
+	{
+		int v = var(lit);
+		value[v] = (byte) (lit > 0 ? 1 : -1);
+		level[v] = decisionLevel;
+		reason[v] = c;
+		trail[trailSize++] = lit;
+	}
+
+	/* Adds a clause to the list of clauses
+	 *		Input:	The literals							(int[] clause)
+	 *				The number of levels it spans			(int levels)
+	 *
+	 *		Output:	The index of the clause					(int)
+	 */
+	private int addClause(int[] clause, int levels)
+	{
+		int c = clauses.size();
+		clauses.add(clause);
+		if(c == deleted.length) {
+			deleted = Arrays.copyOf(deleted, 2 * c);
+			lbd = Arrays.copyOf(lbd, 2 * c);
+		}
+		lbd[c] = levels;
+		return c;
+	}
+
+	/* Watches the first two literals of a clause
+	 *		Input:	The index of the clause		(int c)
+	 */
+	private void attach(int c)
+	{
+		addWatch(clauses.get(c)[0], c);
+		addWatch(clauses.get(c)[1], c);
+	}
+
+	/* Adds a clause to the watch list of a literal
+	 *		Input:	The literal					(int lit)
+	 *				The index of the clause		(int c)
+	 */
+	private void addWatch(int lit, int c)
+	{
+		int w = index(lit);
+		if(watchSize[w] == watch[w].length)
+			watch[w] = Arrays.copyOf(watch[w], 2 * watchSize[w]);
+		watch[w][watchSize[w]++] = c;
+	}
+
+	/* Deletes the half of the learned clauses (longer than 2 and not implying a literal) that span the most levels, the
+	 * oldest first among the same number of levels
+	 */
+	private void reduce()
+	{
+		boolean[] locked = new boolean[clauses.size()];
+		for(int i = 0; i < trailSize; i++)
+			if(reason[var(trail[i])] >= 0)
+				locked[reason[var(trail[i])]] = true;
+
+		ArrayList<Integer> candidates = new ArrayList<Integer>();
+		for(int c = numInput; c < clauses.size(); c++)
+			if(!deleted[c] && !locked[c] && clauses.get(c).length > 2)
+				candidates.add(c);
+		candidates.sort((a, b) -> lbd[a] != lbd[b] ? Integer.compare(lbd[b], lbd[a]) : Integer.compare(a, b));
+		for(int i = 0; i < candidates.size() / 2; i++) {
+			deleted[candidates.get(i)] = true;
+			numLearned--;
+		}
+	}
+
+	/* Bumps the activity of a variable */
+	private void bump(int v)
+	{
+		activity[v] += varInc;
+		if(activity[v] > 1e100) {
+			for(int u = 0; u < numVars; u++)
+				activity[u] *= 1e-100;
+			varInc *= 1e-100;
+		}
+		if(heapIndex[v] >= 0)
+			heapUp(heapIndex[v]);
+	}
+
+	/* Inserts a variable into the heap */
+	private void heapInsert(int v)
+	{
+		heap[heapSize] = v;
+		heapIndex[v] = heapSize;
+		heapUp(heapSize++);
+	}
+
+	/* Removes the variable with the most activity from the heap
+	 *		Output:	The variable	(int)
+	 */
+	private int heapRemoveMax()
+	{
+		int top = heap[0];
+		heapIndex[top] = -1;
+		if(--heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapIndex[heap[0]] = 0;
+			heapDown(0);
+		}
+		return top;
+	}
+
+	/* Moves the variable at a position of the heap up until its parent has more activity */
+	private void heapUp(int i)
+	{
+		int v = heap[i];
+		while(i > 0 && activity[heap[(i-1) / 2]] < activity[v]) {
+			heap[i] = heap[(i-1) / 2];
+			heapIndex[heap[i]] = i;
+			i = (i-1) / 2;
+		}
+		heap[i] = v;
+		heapIndex[v] = i;
+	}
+
+	/* Moves the variable at a position of the heap down until its children have less activity */
+	private void heapDown(int i)
+	{
+		int v = heap[i];
+		while(2*i + 1 < heapSize)
+		{
+			int child = 2*i + 1;
+			if(child+1 < heapSize && activity[heap[child+1]] > activity[heap[child]])
+				child++;
+			if(activity[heap[child]] <= activity[v])
+				break;
+			heap[i] = heap[child];
+			heapIndex[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		heapIndex[v] = i;
+	}
+
+	/* Prints the learned clauses that the empty clause depends on, each one as the resolution steps it was learned by,
+	 * numbering the new clauses after the kb clauses
+	 */
+	private void printProof()
+	{
+		// Mark the learned clauses used, from the empty clause back (a learned clause only uses clauses before it)
+		boolean[] used = new boolean[clauses.size()];
+		markUsed(emptyChain, used);
+		for(int c = clauses.size()-1; c >= numInput; c--)
+			if(used[c])
+				markUsed(chains.get(c - numInput), used);
+
+		int[] number = new int[clauses.size()];
+		for(int c = 0; c < numInput; c++)
+			number[c] = c+1;
+		int next = numInput;
+		for(int c = numInput; c < clauses.size(); c++)
+			if(used[c])
+				next = printSteps(chains.get(c - numInput), number, next, c);
+		printSteps(emptyChain, number, next, -1);
+	}
+
+	/* Marks the clauses resolved in the steps of a learned clause
+	 *		Input:	The steps						(int[] chain)
+	 *				The marks of the clauses used	(boolean[] used)
+	 */
+	private void markUsed(int[] chain, boolean[] used)
+	{
+		used[chain[0]] = true;
+		for(int s = 2; s < chain.length; s += 2)
+			used[chain[s]] = true;
+	}
+
+	/* Prints the resolution steps of a learned clause (the empty clause as a contradiction)
+	 *		Input:	The steps										(int[] chain)
+	 *				The printed number of each clause				(int[] number)
+	 *				The number of the last clause printed			(int next)
+	 *				The index of the learned clause (-1 for empty)	(int learned)
+	 *
+	 *		Output:	The number of the last clause printed			(int)
+	 */
+	private int printSteps(int[] chain, int[] number, int next, int learned)
+	{
+		int[] current = distinct(clauses.get(chain[0]));
+		int currentNumber = number[chain[0]];
+		for(int s = 1; s < chain.length; s += 2)
+		{
+			int pivot = chain[s], other = chain[s+1];
+
+			// Resolve the current clause with the next one on the pivot
+			int[] resolvent = new int[current.length + clauses.get(other).length];
+			int size = 0;
+			for(int lit : current)
+				if(var(lit) != pivot)
+					resolvent[size++] = lit;
+			for(int lit : clauses.get(other))
+				if(var(lit) != pivot && !contains(resolvent, size, lit))
+					resolvent[size++] = lit;
+			literals.sort(resolvent, size);
+			current = Arrays.copyOf(resolvent, size);
+
+			trace.clause(++next, current, currentNumber, number[other]);
+			currentNumber = next;
+		}
+		if(learned >= 0)
+			number[learned] = currentNumber;
+		return next;
+	}
+
+	/* Returns the literals of a clause without repeats
+	 *		Input:	The clause				(int[] clause)
+	 *
+	 *		Output:	The distinct literals	(int[])
+	 */
+	private static int[] distinct(int[] clause)
+	{
+		int[] result = new int[clause.length];
+		int size = 0;
+		for(int lit : clause)
+			if(!contains(result, size, lit))
+				result[size++] = lit;
+		return Arrays.copyOf(result, size);
+	}
+
+	/* Checks if a clause holds a literal and its negation
+	 *		Input:	The clause					(int[] clause)
+	 *
+	 *		Output:	True if it is always true	(boolean)
+	 */
+	private static boolean alwaysTrue(int[] clause)
+	{
+		for(int lit : clause)
+			if(contains(clause, clause.length, -lit))
+				return true;
+		return false;
+	}
+
+	/* Checks if a literal is among the first literals of a clause
+	 *		Input:	The clause							(int[] clause)
+	 *				The number of literals to look at	(int size)
+	 *				The literal							(int lit)
+	 *
+	 *		Output:	True if the literal is there		(boolean)
+	 */
+	private static boolean contains(int[] clause, int size, int lit)
+	{
+		for(int m = 0; m < size; m++)
+			if(clause[m] == lit)
+				return true;
+		return false;
+	}
+
+	/* Returns a term of the luby sequence (1, 1, 2, 1, 1, 2, 4, ...)
+	 *		Input:	The index of the term (from 0)	(long i)
+	 *
+	 *		Output:	The term						(long)
+	 */
+	private static long luby(long i)
+	{
+		long size = 1;
+		int seq = 0;
+		while(size < i+1) {
+			seq++;
+			size = 2*size + 1;
+		}
+		while(size-1 != i) {
+			size = (size-1) / 2;
+			seq--;
+			i = i % size;
+		}
+		return 1L << seq;
+	}
+
+	/* Returns the index of a literal into the watch lists
+	 *		Input:	The literal		(int lit)
+	 *
+	 *		Output:	The index		(int)
+	 */
+	private static int index(int lit)
+	{
+		return lit > 0 ? 2 * (lit-1) : 2 * (-lit-1) + 1;
+	}
+
+	/* Returns the variable of a literal
+	 *		Input:	The literal		(int lit)
+	 *
+	 *		Output:	The variable	(int)
+	 */
+	private static int var(int lit)
+	{
+		return Math.abs(lit) - 1;
+	}
+
+	/* Returns the value of a literal
+	 *		Input:	The literal								(int lit)
+	 *
+	 *		Output:	1 if true, -1 if false, 0 if unassigned	(int)
+	 */
+	private int litValue(int lit)
+	{
+		return lit > 0 ? value[lit-1] : -value[-lit-1];
+	}
+}
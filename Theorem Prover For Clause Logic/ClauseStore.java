@@ -0,0 +1,451 @@
+/* ClauseStore.java
+ *
+ *		Description:	The clauses of the kb in the order they were added, so that a clause keeps its number,
+ *							together with a hash table over their sorted literals so that checking if a new
+ *							clause is already in the kb does not compare it with every clause. The table is
+ *							open addressing over the clause numbers, so each clause costs two ints of it.
+ *							Each literal also has a list of where it occurs (clause number and position), in
+ *							the order the clauses were added, so that the clauses a clause can be resolved
+ *							with are found without looking at the others.
+ *							A clause can be retired when a newer clause subsumes it (has a subset of its
+ *							literals): it keeps its number and stays in the store, but is not resolved
+ *							any more. To find the clauses that subsume a new clause, each clause is also
+ *							listed under its first literal, so that only the clauses listed under one of
+ *							the literals of the new clause are compared with it.
+ *							The two clauses that each new clause was resolved from are kept so that the
+ *							proof of the empty clause can be traced back from it.
+ *							The store can be rolled back to a checkpoint, taking out the clauses added since
+ *							then (from the last one, so that the hash table and the lists are left as they
+ *							were) and bringing back the clauses retired since then, so that a query can add
+ *							its goal and the clauses made from it on top of the kb and take them back out.
+ *							To keep the store within a number of clauses, the new clauses that no clause was
+ *							resolved from can be evicted: their literals are let go and they are taken out
+ *							of the hash table and the lists (all at once, keeping the order of the others),
+ *							and they stay retired under their number.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class ClauseStore {
+
+	// The clauses in the order added (null once evicted), the hash of each one, the indices of the two clauses it was
+	// resolved from (-1 for a kb clause) and the number of clauses resolved from it
+	private final ArrayList<int[]> clauses = new ArrayList<int[]>();
+	private int[] hashes = new int[16];
+	private int[] parents = new int[32];
+	private int[] children = new int[16];
+	private int numEvicted;
+
+	// The hash table: each slot holds a clause number + 1, or 0 if it is empty
+	private int[] table = new int[32];
+
+	// The occurrences of each literal lit (at lit + the number of atoms), packed as clause number and position pairs
+	private final int[][] occ;
+	private final int[] occSize;
+	private final int numAtoms;
+
+	// The clauses subsumed by a newer clause (and the order they were retired in), and the clauses listed under each
+	// literal (the first literal of each clause)
+	private final BitSet retired = new BitSet();
+	private int[] retiredOrder = new int[16];
+	private int numRetired;
+	private final int[][] watch;
+	private final int[] watchSize;
+
+	// The literals of the clause being compared with others are marked with the current stamp
+	private final int[] mark;
+	private int stamp;
+
+	/* Creates an empty clause store
+	 *		Input:	The number of atoms of the kb	(int numAtoms)
+	 */
+	public ClauseStore(int numAtoms)
+	{
+		this.numAtoms = numAtoms;
+		occ = new int[2 * numAtoms + 1][8];
+		occSize = new int[2 * numAtoms + 1];
+		watch = new int[2 * numAtoms + 1][4];
+		watchSize = new int[2 * numAtoms + 1];
+		mark = new int[2 * numAtoms + 1];
+	}
+
+	/* Returns the number of clauses
+	 *		Output:	The number of clauses	(int)
+	 */
+	public int size()
+	{
+		return clauses.size();
+	}
+
+	/* Returns the number of clauses that have not been evicted
+	 *		Output:	The number of clauses	(int)
+	 */
+	public int retained()
+	{
+		return clauses.size() - numEvicted;
+	}
+
+	/* Returns a clause
+	 *		Input:	The index of the clause (its number - 1)	(int i)
+	 *
+	 *		Output:	The literals of the clause (null if evicted)	(int[])
+	 */
+	public int[] get(int i)
+	{
+		return clauses.get(i);
+	}
+
+	/* Returns the index of the clause that a clause was resolved from (the one it was resolved on first)
+	 *		Input:	The index of the clause				(int i)
+	 *
+	 *		Output:	The index of the parent or -1		(int)
+	 */
+	public int parent1(int i)
+	{
+		return parents[2*i];
+	}
+
+	/* Returns the index of the other clause that a clause was resolved from
+	 *		Input:	The index of the clause				(int i)
+	 *
+	 *		Output:	The index of the parent or -1		(int)
+	 */
+	public int parent2(int i)
+	{
+		return parents[2*i + 1];
+	}
+
+	/* Checks if a clause is in the store
+	 *		Input:	The clause, sorted				(int[] clause)
+	 *
+	 *		Output:	True if the clause is there		(boolean)
+	 */
+	public boolean contains(int[] clause)
+	{
+		int hash = Arrays.hashCode(clause);
+		for(int slot = hash & (table.length-1); table[slot] != 0; slot = (slot+1) & (table.length-1))
+			if(hashes[table[slot]-1] == hash && Arrays.equals(clauses.get(table[slot]-1), clause))
+				return true;
+		return false;
+	}
+
+	/* Adds a clause of the kb file at the end of the store, even if it is already there
+	 *		Input:	The clause, sorted	(int[] clause)
+	 */
+	public void add(int[] clause)
+	{
+		add(clause, -1, -1);
+	}
+
+	/* Adds a clause at the end of the store, even if it is already there
+	 *		Input:	The clause, sorted										(int[] clause)
+	 *				The indices of the clauses it was resolved from (or -1)	(int parent1, int parent2)
+	 */
+	public void add(int[] clause, int parent1, int parent2)
+	{
+		int i = clauses.size();
+		clauses.add(clause);
+		if(i == hashes.length) {
+			hashes = Arrays.copyOf(hashes, 2 * i);
+			parents = Arrays.copyOf(parents, 4 * i);
+			children = Arrays.copyOf(children, 2 * i);
+		}
+		hashes[i] = Arrays.hashCode(clause);
+		parents[2*i] = parent1;
+		parents[2*i + 1] = parent2;
+		children[i] = 0;
+		if(parent1 >= 0) {
+			children[parent1]++;
+			children[parent2]++;
+		}
+
+		// Keep the table at most half full
+		if(2 * clauses.size() > table.length)
+		{
+			table = new int[2 * table.length];
+			for(int j = 0; j < i; j++)
+				if(clauses.get(j) != null)
+					insert(j);
+		}
+		insert(i);
+
+		for(int pos = 0; pos < clause.length; pos++)
+		{
+			int lit = clause[pos] + numAtoms;
+			if(occSize[lit] + 2 > occ[lit].length)
+				occ[lit] = Arrays.copyOf(occ[lit], 2 * occ[lit].length);
+			occ[lit][occSize[lit]++] = i;
+			occ[lit][occSize[lit]++] = pos;
+		}
+
+		if(clause.length > 0)
+		{
+			int lit = clause[0] + numAtoms;
+			if(watchSize[lit] == watch[lit].length)
+				watch[lit] = Arrays.copyOf(watch[lit], 2 * watchSize[lit]);
+			watch[lit][watchSize[lit]++] = i;
+		}
+	}
+
+	/* Adds a clause at the end of the store unless it is already there
+	 *		Input:	The clause, sorted								(int[] clause)
+	 *				The indices of the clauses it was resolved from	(int parent1, int parent2)
+	 *
+	 *		Output:	True if the clause was added					(boolean)
+	 */
+	public boolean addIfNew(int[] clause, int parent1, int parent2)
+	{
+		if(contains(clause))
+			return false;
+		add(clause, parent1, parent2);
+		return true;
+	}
+
+	/* Returns the number of occurrences of a literal
+	 *		Input:	The literal					(int lit)
+	 *
+	 *		Output:	The number of occurrences	(int)
+	 */
+	public int occurrences(int lit)
+	{
+		return occSize[lit + numAtoms] / 2;
+	}
+
+	/* Returns the index of the clause of an occurrence of a literal; the occurrences are in the order of their clauses
+	 *		Input:	The literal								(int lit)
+	 *				The occurrence (below occurrences(lit))	(int t)
+	 *
+	 *		Output:	The index of the clause					(int)
+	 */
+	public int occurrenceClause(int lit, int t)
+	{
+		return occ[lit + numAtoms][2 * t];
+	}
+
+	/* Returns the position in its clause of an occurrence of a literal
+	 *		Input:	The literal								(int lit)
+	 *				The occurrence (below occurrences(lit))	(int t)
+	 *
+	 *		Output:	The position of the literal in the clause	(int)
+	 */
+	public int occurrencePosition(int lit, int t)
+	{
+		return occ[lit + numAtoms][2 * t + 1];
+	}
+
+	/* Checks if a clause has been retired
+	 *		Input:	The index of the clause				(int i)
+	 *
+	 *		Output:	True if the clause is retired		(boolean)
+	 */
+	public boolean isRetired(int i)
+	{
+		return retired.get(i);
+	}
+
+	/* Finds a clause that is not retired and subsumes a clause (which does not need to be in the store)
+	 *		Input:	The clause										(int[] clause)
+	 *
+	 *		Output:	The index of a clause with a subset of its		(int)
+	 *				literals or -1 if there is none
+	 */
+	public int subsumer(int[] clause)
+	{
+		markLiterals(clause);
+
+		// A clause that subsumes this one is listed under one of its literals (a kb clause that repeats a literal is not
+		// resolved on every copy at once, so it only subsumes clauses that are at least as long)
+		for(int lit : clause)
+			for(int w = 0; w < watchSize[lit + numAtoms]; w++)
+			{
+				int d = watch[lit + numAtoms][w];
+				if(!retired.get(d) && clauses.get(d).length <= clause.length && allMarked(clauses.get(d)))
+					return d;
+			}
+		return -1;
+	}
+
+	/* Retires every clause that is subsumed by a clause of the store
+	 *		Input:	The index of the clause				(int i)
+	 *
+	 *		Output:	The number of clauses retired		(int)
+	 */
+	public int retireSubsumed(int i)
+	{
+		int[] clause = clauses.get(i);
+		if(clause.length == 0)
+			return 0;
+
+		// A clause that this one subsumes has all of its literals, so it is among the occurrences of the rarest of them
+		int rarest = clause[0];
+		for(int lit : clause)
+			if(occSize[lit + numAtoms] < occSize[rarest + numAtoms])
+				rarest = lit;
+
+		int count = 0;
+		for(int t = 0; t < occurrences(rarest); t++)
+		{
+			int e = occurrenceClause(rarest, t);
+			if(e != i && !retired.get(e) && clauses.get(e).length >= clause.length)
+			{
+				markLiterals(clauses.get(e));
+				if(allMarked(clause)) {
+					retire(e);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/* Returns a checkpoint that the store can be rolled back to
+	 *		Output:	The number of clauses retired and of clauses, packed as (retired << 32) | clauses	(long)
+	 */
+	public long checkpoint()
+	{
+		return ((long) numRetired << 32) | clauses.size();
+	}
+
+	/* Takes out the clauses added since a checkpoint and brings back the clauses retired since then
+	 *		Input:	The checkpoint	(long checkpoint)
+	 */
+	public void rollback(long checkpoint)
+	{
+		// Take out the newest clause first: the clauses whose slot in the table or place in a list comes after its own
+		// were added after it, so they are already gone
+		for(int i = clauses.size()-1; i >= (int) checkpoint; i--)
+		{
+			int[] clause = clauses.remove(i);
+			if(clause == null) {
+				numEvicted--;
+				continue;
+			}
+			if(parents[2*i] >= 0) {
+				children[parents[2*i]]--;
+				children[parents[2*i + 1]]--;
+			}
+
+			int slot = hashes[i] & (table.length-1);
+			while(table[slot] != i+1)
+				slot = (slot+1) & (table.length-1);
+			table[slot] = 0;
+
+			for(int lit : clause)
+				occSize[lit + numAtoms] -= 2;
+			if(clause.length > 0)
+				watchSize[clause[0] + numAtoms]--;
+		}
+
+		while(numRetired > (int) (checkpoint >>> 32))
+			retired.clear(retiredOrder[--numRetired]);
+	}
+
+	/* Evicts the new clauses from an index on that no clause that is kept was resolved from, the longest (the newest of
+	 * those) or the oldest first, until no more than a number of clauses are kept or there are none left to evict
+	 *		Input:	The index of the first clause that can be evicted		(int from)
+	 *				The number of clauses to keep							(int target)
+	 *				True to evict the oldest clauses first					(boolean oldest)
+	 *
+	 *		Output:	The number of clauses evicted							(int)
+	 */
+	public int evict(int from, int target, boolean oldest)
+	{
+		// The clauses that can be evicted, packed as (length << 32) | index to take the longest first
+		long[] candidates = new long[16];
+		int numCandidates = 0;
+		for(int i = from; i < clauses.size(); i++)
+			if(clauses.get(i) != null && parents[2*i] >= 0 && children[i] == 0)
+			{
+				if(numCandidates == candidates.length)
+					candidates = Arrays.copyOf(candidates, 2 * numCandidates);
+				candidates[numCandidates++] = oldest ? i : ((long) clauses.get(i).length << 32) | i;
+			}
+		if(!oldest)
+			Arrays.sort(candidates, 0, numCandidates);
+
+		int count = 0;
+		for(int c = 0; c < numCandidates && retained() > target; c++)
+		{
+			int i = (int) (oldest ? candidates[c] : candidates[numCandidates-1 - c]);
+			if(!retired.get(i))
+				retire(i);
+			clauses.set(i, null);
+			numEvicted++;
+			children[parents[2*i]]--;
+			children[parents[2*i + 1]]--;
+			count++;
+		}
+		if(count == 0)
+			return 0;
+
+		// Take the evicted clauses out of the lists and the table, leaving the others in order
+		for(int lit = 0; lit < occ.length; lit++)
+		{
+			int size = 0;
+			for(int t = 0; t < occSize[lit]; t += 2)
+				if(clauses.get(occ[lit][t]) != null) {
+					occ[lit][size++] = occ[lit][t];
+					occ[lit][size++] = occ[lit][t+1];
+				}
+			occSize[lit] = size;
+
+			size = 0;
+			for(int w = 0; w < watchSize[lit]; w++)
+				if(clauses.get(watch[lit][w]) != null)
+					watch[lit][size++] = watch[lit][w];
+			watchSize[lit] = size;
+		}
+		Arrays.fill(table, 0);
+		for(int i = 0; i < clauses.size(); i++)
+			if(clauses.get(i) != null)
+				insert(i);
+		return count;
+	}
+
+	/* Retires a clause
+	 *		Input:	The index of the clause		(int i)
+	 */
+	private void retire(int i)
+	{
+		retired.set(i);
+		if(numRetired == retiredOrder.length)
+			retiredOrder = Arrays.copyOf(retiredOrder, 2 * numRetired);
+		retiredOrder[numRetired++] = i;
+	}
+
+	/* Marks the literals of a clause with a new stamp
+	 *		Input:	The clause	(int[] clause)
+	 */
+	private void markLiterals(int[] clause)
+	{
+		stamp++;
+		for(int lit : clause)
+			mark[lit + numAtoms] = stamp;
+	}
+
+	/* Checks if every literal of a clause was marked by the last call to markLiterals
+	 *		Input:	The clause							(int[] clause)
+	 *
+	 *		Output:	True if they are all marked			(boolean)
+	 */
+	private boolean allMarked(int[] clause)
+	{
+		for(int lit : clause)
+			if(mark[lit + numAtoms] != stamp)
+				return false;
+		return true;
+	}
+
+	/* Puts a clause into the first free slot of the table from its hash
+	 *		Input:	The index of the clause		(int i)
+	 */
+	private void insert(int i)
+	{
+		int slot = hashes[i] & (table.length-1);
+		while(table[slot] != 0)
+			slot = (slot+1) & (table.length-1);
+		table[slot] = i+1;
+	}
+}
@@ -0,0 +1,150 @@
+/* KbGenerator.java
+ *
+ *		Run with: 		'java KbGenerator pigeonhole <holes> <seed> <kb-file>'
+ *						'java KbGenerator random3cnf <atoms> <ratio> <seed> <kb-file>'
+ *						'java KbGenerator chain <length> <seed> <kb-file>'
+ *
+ *		Description:	Writes seeded benchmark kbs in the kb file format (a clause per line, the goal on the
+ *							last line). The pigeonhole kb puts holes+1 pigeons into holes holes without the
+ *							clause that places the last pigeon, and its goal is that the last pigeon is not
+ *							in the first hole, which is only proved by showing that the other pigeons do
+ *							not fit. The random 3-CNF kb has round(ratio * atoms) clauses of 3 atoms each
+ *							(4.26 is the phase transition, where about half of them are satisfiable) and
+ *							its last clause is the goal. The chain kb is a0 and ai -> ai+1 up to the length,
+ *							with the goal a<length>. The seed also shuffles the order of the clauses.
+ */
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+public class KbGenerator {
+
+	/* Writes a pigeonhole kb: a clause for each of the first holes pigeons that puts it in some hole and a clause for every
+	 * two pigeons and a hole that keeps them out of it together, with the goal ~p<holes>h0
+	 *		Input:	The number of holes						(int holes)
+	 *				Seed of the order of the clauses		(long seed)
+	 *				Path to the kb file						(String kbFile)
+	 */
+	public static void pigeonhole(int holes, long seed, String kbFile) throws IOException
+	{
+		if(holes < 1)
+			throw new IllegalArgumentException("There needs to be at least 1 hole.");
+
+		ArrayList<String> clauses = new ArrayList<String>();
+		for(int p = 0; p < holes; p++)
+		{
+			StringBuilder clause = new StringBuilder();
+			for(int h = 0; h < holes; h++)
+				clause.append(h == 0 ? "" : " ").append(atom(p, h));
+			clauses.add(clause.toString());
+		}
+		for(int h = 0; h < holes; h++)
+			for(int p = 0; p <= holes; p++)
+				for(int q = p+1; q <= holes; q++)
+					clauses.add("~" + atom(p, h) + " ~" + atom(q, h));
+
+		write(kbFile, clauses, new Random(seed), "~" + atom(holes, 0));
+	}
+
+	/* Writes a random 3-CNF kb: round(ratio * atoms) clauses of 3 distinct atoms with random signs, the last of which is
+	 * the goal
+	 *		Input:	The number of atoms						(int atoms)
+	 *				The number of clauses per atom			(double ratio)
+	 *				Seed of the random kb					(long seed)
+	 *				Path to the kb file						(String kbFile)
+	 */
+	public static void random3cnf(int atoms, double ratio, long seed, String kbFile) throws IOException
+	{
+		int numClauses = (int) Math.round(ratio * atoms);
+		if(atoms < 3 || numClauses < 1)
+			throw new IllegalArgumentException("There need to be at least 3 atoms and 1 clause.");
+
+		Random random = new Random(seed);
+		ArrayList<String> clauses = new ArrayList<String>();
+		for(int c = 0; c < numClauses; c++)
+		{
+			int a = random.nextInt(atoms), b, d;
+			do b = random.nextInt(atoms); while(b == a);
+			do d = random.nextInt(atoms); while(d == a || d == b);
+			clauses.add(literal(random, a) + " " + literal(random, b) + " " + literal(random, d));
+		}
+		String goal = clauses.remove(clauses.size()-1);
+
+		write(kbFile, clauses, random, goal);
+	}
+
+	/* Writes an implication chain kb: a0 and ~ai ai+1 for each i below the length, with the goal a<length>
+	 *		Input:	The length of the chain					(int length)
+	 *				Seed of the order of the clauses		(long seed)
+	 *				Path to the kb file						(String kbFile)
+	 */
+	public static void chain(int length, long seed, String kbFile) throws IOException
+	{
+		if(length < 1)
+			throw new IllegalArgumentException("The chain needs a length of at least 1.");
+
+		ArrayList<String> clauses = new ArrayList<String>();
+		clauses.add("a0");
+		for(int i = 0; i < length; i++)
+			clauses.add("~a" + i + " a" + (i+1));
+
+		write(kbFile, clauses, new Random(seed), "a" + length);
+	}
+
+	/* Writes the clauses of a kb in a shuffled order, then its goal
+	 *		Input:	Path to the kb file					(String kbFile)
+	 *				The clauses							(ArrayList<String> clauses)
+	 *				The random source of the order		(Random random)
+	 *				The goal							(String goal)
+	 */
+	private static void write(String kbFile, ArrayList<String> clauses, Random random, String goal) throws IOException
+	{
+		Collections.shuffle(clauses, random);
+		try(PrintWriter kb = new PrintWriter(new BufferedWriter(new FileWriter(kbFile))))
+		{
+			for(String clause : clauses)
+				kb.println(clause);
+			kb.println(goal);
+		}
+	}
+
+	/* Returns the atom that puts a pigeon in a hole, e.g. p3h0
+	 *		Input:	The pigeon		(int p)
+	 *				The hole		(int h)
+	 *
+	 *		Output:	The atom		(String)
+	 */
+	private static String atom(int p, int h)
+	{
+		return "p" + p + "h" + h;
+	}
+
+	/* Returns an atom of the random 3-CNF kb with a random sign, e.g. ~x12
+	 *		Input:	The random source	(Random random)
+	 *				The atom			(int x)
+	 *
+	 *		Output:	The literal			(String)
+	 */
+	private static String literal(Random random, int x)
+	{
+		return (random.nextBoolean() ? "~x" : "x") + x;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		try {
+			if(args.length == 4 && args[0].equals("pigeonhole"))
+				pigeonhole(Integer.parseInt(args[1]), Long.parseLong(args[2]), args[3]);
+			else if(args.length == 5 && args[0].equals("random3cnf"))
+				random3cnf(Integer.parseInt(args[1]), Double.parseDouble(args[2]), Long.parseLong(args[3]), args[4]);
+			else if(args.length == 4 && args[0].equals("chain"))
+				chain(Integer.parseInt(args[1]), Long.parseLong(args[2]), args[3]);
+			else
+				System.out.println("Incorrect arguments. Execute with: 'java KbGenerator pigeonhole|random3cnf|chain <parameters> <kb-file>'");
+		} catch(IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/* Literals.java
+ *
+ *		Description:	The atoms of a knowledge base interned to integer ids. A literal is a signed int:
+ *							+(id+1) for an atom and -(id+1) for its negation, so the complement of a literal
+ *							is its negation. The ids are given out in alphabetical order of the atom names,
+ *							which lets clauses be sorted on ints into the same order as sorting the literal
+ *							strings (every atom before every negated atom, each alphabetically).
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+public class Literals {
+
+	// The name of each atom (in alphabetical order) and the id of each name
+	private final String[] names;
+	private final HashMap<String, Integer> ids;
+
+	/* Creates the literal table of a set of atoms
+	 *		Input:	The atom names	(Collection<String> atoms)
+	 */
+	public Literals(Collection<String> atoms)
+	{
+		names = new TreeSet<String>(atoms).toArray(new String[0]);
+		ids = new HashMap<String, Integer>();
+		for(int i = 0; i < names.length; i++)
+			ids.put(names[i], i);
+	}
+
+	/* Returns the atom of a literal as written in a kb file (without its '~')
+	 *		Input:	The literal as written	(String token)
+	 *
+	 *		Output:	The atom name			(String)
+	 */
+	public static String atom(String token)
+	{
+		return token.charAt(0) == '~' ? token.substring(1) : token;
+	}
+
+	/* Returns the number of atoms
+	 *		Output:	The number of atoms	(int)
+	 */
+	public int size()
+	{
+		return names.length;
+	}
+
+	/* Checks if the atom of a literal is in the table
+	 *		Input:	The literal as written			(String token)
+	 *
+	 *		Output:	True if its atom is there		(boolean)
+	 */
+	public boolean contains(String token)
+	{
+		return ids.containsKey(atom(token));
+	}
+
+	/* Returns the literal written as a token in a kb file; its atom has to be in the table
+	 *		Input:	The literal as written	(String token)
+	 *
+	 *		Output:	The literal				(int)
+	 */
+	public int parse(String token)
+	{
+		int lit = ids.get(atom(token)) + 1;
+		return token.charAt(0) == '~' ? -lit : lit;
+	}
+
+	/* Returns a literal as it is written in a kb file
+	 *		Input:	The literal		(int lit)
+	 *
+	 *		Output:	The text		(String)
+	 */
+	public String toString(int lit)
+	{
+		return lit > 0 ? names[lit-1] : "~" + names[-lit-1];
+	}
+
+	/* Returns the sort key of a literal: every atom comes before every negated atom, and atoms by name
+	 *		Input:	The literal		(int lit)
+	 *
+	 *		Output:	The key			(int)
+	 */
+	public int key(int lit)
+	{
+		return lit > 0 ? lit : names.length - lit;
+	}
+
+	/* Returns the literal with the given sort key
+	 *		Input:	The key			(int key)
+	 *
+	 *		Output:	The literal		(int)
+	 */
+	public int fromKey(int key)
+	{
+		return key <= names.length ? key : names.length - key;
+	}
+
+	/* Sorts the literals of a clause in place
+	 *		Input:	The clause							(int[] clause)
+	 *				The number of literals to sort		(int length)
+	 */
+	public void sort(int[] clause, int length)
+	{
+		for(int i = 0; i < length; i++)
+			clause[i] = key(clause[i]);
+		Arrays.sort(clause, 0, length);
+		for(int i = 0; i < length; i++)
+			clause[i] = fromKey(clause[i]);
+	}
+}
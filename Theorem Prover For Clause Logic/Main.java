@@ -1,156 +1,303 @@
 /* Main.java
  * 
  * 		Compile with: 	'javac Main.java'
- * 		Run with: 		'java Main <kb-file>'
+ * 		Run with: 		'java Main <kb-file> [options]'
  * 
+ *		Options:		--strategy <s>		Resolve every clause with every clause before it in order (exhaustive,
+ *											the default), take the shortest clause of the negated goal and the
+ *											clauses made from it at a time (given) or search for an assignment
+ *											that makes every clause true with a CDCL SAT solver (cdcl)
+ *						--trace <level>		Print the kb clauses and only the clauses that the contradiction was
+ *											derived from (proof, the default), every new clause as it is made
+ *											(full) or only the result (off)
+ *						--renumber			Number the clauses of the proof after the kb clauses instead of keeping
+ *											their own numbers
+ *						--subsume			Drop new clauses that a clause of the kb subsumes and retire the clauses
+ *											that a new clause subsumes
+ *						--parallel <n>		Make the resolvents of each round of clauses on n threads (the clauses are
+ *											numbered and printed as in the sequential run)
+ *						--queries <file>	Read every line of the kb file as a kb clause and answer each line of the
+ *											file (or of the standard input for -) as a goal, adding its negated
+ *											literals to the kb and taking them back out after it (resolution
+ *											resolves the kb clauses with each other once, before the first)
+ *						--max-clauses <n>	Evict new clauses that no clause was resolved from once there are more
+ *											than n clauses, and stop with Unknown if none are left to evict
+ *						--max-length <n>	Drop new clauses with more than n literals
+ *						--time-limit <ms>	Stop with Unknown once the search has taken ms milliseconds
+ *						--evict <policy>	Evict the longest clauses first (longest, the default) or the oldest
+ *											(oldest); once a clause is dropped or evicted, Unknown is printed
+ *											instead of Failure
+ *						--stats				Print the number of resolvents made, the number of clauses, the number
+ *											of clauses subsumed, dropped, retired and evicted and the time taken once
+ *											the proof is over (with cdcl, the conflicts, decisions, propagations and
+ *											learned clauses)
+ *
  *		Description:	A theorem prover for clause logic using the resolution principle.
  */
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Scanner;
 
 public class Main {
 	
 	public static void main(String[] args) throws FileNotFoundException {
 		// Make sure the correct number of arguments are provided
-		if(args.length == 1)
+		if(args.length >= 1)
 		{
 			String kbFile = args[0];
 			
-			// Get the clauses from the kb file
-			Scanner sc1 = new Scanner(new File(kbFile));
-
-			// Initialize an ArrayList for the kb clauses
-			ArrayList<ArrayList<String>> kb = new ArrayList<ArrayList<String>>();
-			
-			// Loop through lines and add to kb
-			while(sc1.hasNextLine()) {
-				String next = sc1.nextLine();
-				if(!next.trim().isEmpty()) {
-					String[] splitLine = next.split("\\s+");
-					ArrayList<String> line = new ArrayList<String>();
-					for(int i = 0; i < splitLine.length; i++)
-						line.add(splitLine[i]);
-					kb.add(line);
+			// Read the options
+			int strategy = Resolution.EXHAUSTIVE;
+			int traceLevel = Trace.PROOF;
+			boolean subsume = false, renumber = false, stats = false;
+			int threads = 1, maxClauses = 0, maxLength = 0, eviction = Resolution.LONGEST;
+			long timeLimit = 0;
+			String queryFile = null;
+			try {
+				for(int i = 1; i < args.length; i++) {
+					if(Objects.equals(args[i], "--strategy") && i+1 < args.length && Resolution.strategy(args[i+1]) >= 0)
+						strategy = Resolution.strategy(args[++i]);
+					else if(Objects.equals(args[i], "--trace") && i+1 < args.length && Trace.level(args[i+1]) >= 0)
+						traceLevel = Trace.level(args[++i]);
+					else if(Objects.equals(args[i], "--renumber"))
+						renumber = true;
+					else if(Objects.equals(args[i], "--subsume"))
+						subsume = true;
+					else if(Objects.equals(args[i], "--parallel") && i+1 < args.length && Integer.parseInt(args[i+1]) > 0)
+						threads = Integer.parseInt(args[++i]);
+					else if(Objects.equals(args[i], "--queries") && i+1 < args.length)
+						queryFile = args[++i];
+					else if(Objects.equals(args[i], "--max-clauses") && i+1 < args.length && Integer.parseInt(args[i+1]) > 0)
+						maxClauses = Integer.parseInt(args[++i]);
+					else if(Objects.equals(args[i], "--max-length") && i+1 < args.length && Integer.parseInt(args[i+1]) > 0)
+						maxLength = Integer.parseInt(args[++i]);
+					else if(Objects.equals(args[i], "--time-limit") && i+1 < args.length && Long.parseLong(args[i+1]) > 0)
+						timeLimit = Long.parseLong(args[++i]);
+					else if(Objects.equals(args[i], "--evict") && i+1 < args.length && Resolution.eviction(args[i+1]) >= 0)
+						eviction = Resolution.eviction(args[++i]);
+					else if(Objects.equals(args[i], "--stats"))
+						stats = true;
+					else {
+						System.out.println(args[i] + " is not a valid option.");
+						return;
+					}
 				}
+			} catch(NumberFormatException e) {
+				System.out.println(e.getMessage() + " is not a valid number.");
+				return;
 			}
-			sc1.close();
 			
-			// Negate last clause
-			ArrayList<String> lastClause = kb.get(kb.size()-1);
-			kb.remove(kb.size()-1);
-			for(int i = 0; i < lastClause.size(); i++)
-			{
-				String atom = lastClause.get(i);
-				ArrayList<String> newLine = new ArrayList<String>();
-				if (atom.charAt(0) == '~')
-					newLine.add(atom.substring(1));
-				else
-					newLine.add("~"+atom);
-				kb.add(newLine);
-			}
-
+			// Get the lines of the kb file and intern their atoms
+			ArrayList<String[]> lines = readLines(kbFile);
+			Literals literals = intern(lines);
+			
+			// Turn each line into a clause of literals, negating the last one (the goal) unless queries follow
+			ArrayList<int[]> kb = clauses(lines, literals, queryFile == null);
+			int numGoal = queryFile == null ? lines.get(lines.size()-1).length : 0;
 			
 			// Print initial kb clauses and sort alphabetically 
-			for(int i = 0; i < kb.size(); i++)
+			Trace trace = new Trace(traceLevel, renumber, literals, System.out);
+			trace.kb(kb);
+			ClauseStore store = store(kb, literals);
+			
+			Resolution resolution = new Resolution(store, literals, trace);
+			resolution.setSubsumption(subsume);
+			resolution.setParallelism(threads);
+			resolution.setLimits(maxClauses, maxLength, timeLimit);
+			resolution.setEviction(eviction);
+			
+			// Search for an assignment that makes every clause true
+			long start = System.nanoTime();
+			String summary;
+			if(queryFile != null)
 			{
-				System.out.print((i+1) + ". ");
-				for(int j = 0; j < kb.get(i).size(); j++) {
-					System.out.print(kb.get(i).get(j) + " ");
-				}
-				System.out.println("{}");
-				Collections.sort(kb.get(i));
+				Scanner goals = queryFile.equals("-") ? new Scanner(System.in) : new Scanner(new File(queryFile));
+				summary = answer(goals, store, literals, trace, strategy, resolution, timeLimit);
+				goals.close();
+			}
+			else if(strategy == Resolution.CDCL)
+			{
+				Cdcl cdcl = new Cdcl(store, literals, trace);
+				cdcl.setTimeLimit(timeLimit);
+				cdcl.solve();
+				summary = cdcl.statistics();
 			}
 			
 			// Apply resolution
-			resolution(kb);
+			else
+			{
+				if(strategy == Resolution.GIVEN_CLAUSE)
+					resolution.givenClause(kb.size() - numGoal);
+				else
+					resolution.exhaustive();
+				summary = statistics(resolution, store);
+			}
+			trace.flush();
+			if(stats)
+				System.out.printf(Locale.ROOT, "%s, %.3f ms%n", summary, (System.nanoTime() - start) / 1e6);
 		}
 		
 		// Output a message if the incorrect number of arguments is provided
 		else
-			System.out.println("Incorrect number of arguments. Execute with: 'java Main <kb-file>'");
+			System.out.println("Incorrect number of arguments. Execute with: 'java Main <kb-file> [options]'");
 	}
-
-	public static boolean resolution(ArrayList<ArrayList<String>> kb)
+	
+	/* Reads the lines of a kb file that are not empty, split into the literals as written
+	 *		Input:	Path to the kb file		(String kbFile)
+	 *
+	 *		Output:	The lines				(ArrayList<String[]>)
+	 */
+	static ArrayList<String[]> readLines(String kbFile) throws FileNotFoundException
+	{
+		Scanner sc1 = new Scanner(new File(kbFile));
+		ArrayList<String[]> lines = new ArrayList<String[]>();
+		while(sc1.hasNextLine()) {
+			String next = sc1.nextLine();
+			if(!next.trim().isEmpty())
+				lines.add(next.split("\\s+"));
+		}
+		sc1.close();
+		return lines;
+	}
+	
+	/* Interns the atoms of the lines of a kb file
+	 *		Input:	The lines			(ArrayList<String[]> lines)
+	 *
+	 *		Output:	The literal table	(Literals)
+	 */
+	static Literals intern(ArrayList<String[]> lines)
+	{
+		HashSet<String> atoms = new HashSet<String>();
+		for(String[] line : lines)
+			for(String token : line)
+				atoms.add(Literals.atom(token));
+		return new Literals(atoms);
+	}
+	
+	/* Turns the lines of a kb file into clauses of literals, in the order they were written, with the last line (the goal)
+	 * negated into a unit clause for each of its literals
+	 *		Input:	The lines									(ArrayList<String[]> lines)
+	 *				The literal table							(Literals literals)
+	 *				False if every line is a kb clause			(boolean goal)
+	 *
+	 *		Output:	The clauses									(ArrayList<int[]>)
+	 */
+	static ArrayList<int[]> clauses(ArrayList<String[]> lines, Literals literals, boolean goal)
+	{
+		ArrayList<int[]> kb = new ArrayList<int[]>();
+		int numClauses = goal ? lines.size()-1 : lines.size();
+		for(int i = 0; i < numClauses; i++)
+		{
+			int[] clause = new int[lines.get(i).length];
+			for(int j = 0; j < clause.length; j++)
+				clause[j] = literals.parse(lines.get(i)[j]);
+			kb.add(clause);
+		}
+		
+		// Negate last clause
+		if(goal)
+			for(String token : lines.get(lines.size()-1))
+				kb.add(new int[] {-literals.parse(token)});
+		return kb;
+	}
+	
+	/* Puts clauses into a clause store, each one sorted alphabetically
+	 *		Input:	The clauses				(ArrayList<int[]> kb)
+	 *				The literal table		(Literals literals)
+	 *
+	 *		Output:	The store				(ClauseStore)
+	 */
+	static ClauseStore store(ArrayList<int[]> kb, Literals literals)
 	{
-		// Loop through kb clauses
-		for(int i = 1; i < kb.size(); i++)
+		ClauseStore store = new ClauseStore(literals.size());
+		for(int[] line : kb)
 		{
-			ArrayList<String> clause1 = kb.get(i);
+			int[] clause = line.clone();
+			literals.sort(clause, clause.length);
+			store.add(clause);
+		}
+		return store;
+	}
+	
+	/* Answers each goal of a query file on the same kb: the negated literals of the goal are added at the end of the kb,
+	 * resolved (or solved) and then taken back out with the clauses made from them
+	 *		Input:	The goals, one per line								(Scanner goals)
+	 *				The kb clauses (sorted)								(ClauseStore store)
+	 *				The atoms of the kb									(Literals literals)
+	 *				Where the clauses and the results are printed		(Trace trace)
+	 *				The strategy										(int strategy)
+	 *				The resolution of the kb, with its options			(Resolution resolution)
+	 *				The time limit of cdcl in ms (0 for none)			(long timeLimit)
+	 *
+	 *		Output:	The number of queries and of valid ones, with the	(String)
+	 *				resolution statistics
+	 */
+	private static String answer(Scanner goals, ClauseStore store, Literals literals, Trace trace, int strategy,
+			Resolution resolution, long timeLimit)
+	{
+		// Resolve the kb clauses with each other once, so that each query only resolves its own clauses and a contradictory kb
+		// is found once (cdcl starts from the kb for each query)
+		if(strategy != Resolution.CDCL)
+			resolution.saturate();
+		long checkpoint = store.checkpoint();
+		
+		int queries = 0, valid = 0;
+		while(goals.hasNextLine())
+		{
+			String line = goals.nextLine().trim();
+			if(line.isEmpty())
+				continue;
+			queries++;
+			
+			// Negate the goal; a literal whose atom is not in the kb cannot be resolved away, so it is left out, unless its
+			// complement is in the goal as well and the goal is always true
+			boolean alwaysTrue = false;
+			HashSet<String> unknown = new HashSet<String>();
+			for(String token : line.split("\\s+"))
+				if(literals.contains(token))
+					store.add(new int[] {-literals.parse(token)});
+				else if(unknown.add(token))
+					alwaysTrue |= unknown.contains(token.charAt(0) == '~' ? token.substring(1) : "~" + token);
+			trace.goal(store, (int) checkpoint);
 			
-			// Loop through kb clauses before clause1
-			for(int k = 0; k < i; k++)
+			if(alwaysTrue) {
+				trace.result(true);
+				valid++;
+			}
+			else if(strategy == Resolution.CDCL)
 			{
-				ArrayList<String> clause2 = kb.get(k);
-				
-				// Loop through atoms in clause1
-				for(int j = 0; j < clause1.size(); j++)
-				{
-					// Check if clause1 is negated
-					boolean cl1Negated = false;
-					if (clause1.get(j).charAt(0) == '~')
-						cl1Negated = true;
-
-					// Loop through atoms in clause2
-					for(int l = 0; l < clause2.size(); l++)
-					{
-						// Check if clause1 == ~clause2
-						if ((cl1Negated && clause1.get(j).substring(1).equals(clause2.get(l))) ||
-								(!cl1Negated && clause2.get(l).length() > 1 && clause2.get(l).substring(1).equals(clause1.get(j))))
-						{
-							// Create new clause by combining clause1 and clause2
-							ArrayList<String> newClause = new ArrayList<String>();
-							for(int m = 0; m < clause1.size(); m++)
-								if(m != j && !newClause.contains(clause1.get(m)))
-									newClause.add(clause1.get(m));
-							for(int m = 0; m < clause2.size(); m++)
-								if(m != l && !newClause.contains(clause2.get(m)))
-									newClause.add(clause2.get(m));
-
-							// If new clause is always true (p ~p), do not add it to the kb
-							boolean alwaysTrue = false;
-							for(int m = 0; m < newClause.size() && !alwaysTrue; m++)
-							{
-								boolean negated = false;
-								if (newClause.get(m).charAt(0) == '~')
-									negated = true;
-								if ((negated && newClause.contains(newClause.get(m).substring(1))) || (!negated && newClause.contains("~"+newClause.get(m))))
-									alwaysTrue = true;
-							}
-							if (!alwaysTrue)
-							{
-								// Alphabetically sort the new clause
-								Collections.sort(newClause);
-								
-								// If the new clause is unique to the kb, add it
-								if (!kb.contains(newClause))
-								{
-									kb.add(newClause);
-									
-									// If an empty clause is generated, we have found a contradiction
-									if(newClause.size() == 0) {
-										System.out.println((kb.size()) + ". Contradiction {"+(i+1)+", "+(k+1)+"}\nValid");
-										return true;
-									}
-									
-									// Print the new clause
-									System.out.print((kb.size()) + ". ");
-									for(int m = 0; m < newClause.size(); m++)
-										System.out.print(newClause.get(m) + " ");
-									System.out.println("{"+(i+1)+", "+(k+1)+"}");
-								}
-							}
-						}
-					}
-				}
+				Cdcl cdcl = new Cdcl(store, literals, trace);
+				cdcl.setTimeLimit(timeLimit);
+				if(cdcl.solve())
+					valid++;
 			}
+			else if(strategy == Resolution.GIVEN_CLAUSE ? resolution.givenClause((int) checkpoint) :
+					resolution.exhaustive((int) checkpoint))
+				valid++;
+			trace.flush();
+			store.rollback(checkpoint);
 		}
 		
-		// Print failure if no contradictions were found
-		System.out.println("Failure");
-		return false;
+		if(strategy == Resolution.CDCL)
+			return queries + " queries, " + valid + " valid";
+		return queries + " queries, " + valid + " valid, " + statistics(resolution, store);
+	}
+	
+	/* Returns the statistics of a resolution
+	 *		Input:	The resolution			(Resolution resolution)
+	 *				The kb clauses			(ClauseStore store)
+	 *
+	 *		Output:	The statistics			(String)
+	 */
+	private static String statistics(Resolution resolution, ClauseStore store)
+	{
+		return resolution.getGenerated() + " resolvents, " + store.size() + " clauses, " + resolution.getSubsumed() +
+				" subsumed, " + resolution.getDropped() + " dropped, " + resolution.getRetired() + " retired, " +
+				resolution.getEvicted() + " evicted";
 	}
 }
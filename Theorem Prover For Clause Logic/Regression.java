@@ -0,0 +1,135 @@
+/* Regression.java
+ *
+ *		Compile with: 	'javac Regression.java'
+ *		Run with: 		'java Regression [--kbs <n>]'
+ *
+ *		Options:		--kbs <n>			The number of seeded random 3-CNF kbs that the strategies are
+ *											compared on (200)
+ *
+ *		Description:	Checks that every strategy gives the same answer: each kb of a list of small kbs
+ *							with a known answer (a kb that is contradictory without its goal among them)
+ *							is proved with the exhaustive, given and cdcl strategies and with the given
+ *							strategy after the kb is saturated (as queries are answered), and so is each of
+ *							a number of seeded random 3-CNF kbs, which are often contradictory without their
+ *							goal as well. A kb that a strategy answers differently is printed, and the run
+ *							exits with status 1 if there is one.
+ */
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+public class Regression {
+
+	// The kbs with a known answer, one clause per line with the goal last, and whether each one is valid
+	private static final String[][] KBS = {
+		{"c", "~c", "c ~c", "~e ~u", "~e"},
+		{"p q", "~p q", "p ~q", "~p ~q", "r"},
+		{"p q", "~p r", "~q r", "r"},
+		{"p q", "~p r", "s"},
+	};
+	private static final boolean[] VALID = {true, true, true, false};
+
+	/* Proves a kb with a strategy
+	 *		Input:	The lines of the kb, with the goal last		(ArrayList<String[]> lines)
+	 *				The strategy								(int strategy)
+	 *				True to saturate the kb before the goal is	(boolean queries)
+	 *				added, as queries are answered
+	 *
+	 *		Output:	True if the kb is contradictory				(boolean)
+	 */
+	private static boolean prove(ArrayList<String[]> lines, int strategy, boolean queries)
+	{
+		Literals literals = Main.intern(lines);
+		Trace trace = new Trace(Trace.OFF, false, literals, OutputStream.nullOutputStream());
+		String[] goal = lines.get(lines.size()-1);
+		if(!queries)
+		{
+			ClauseStore store = Main.store(Main.clauses(lines, literals, true), literals);
+			if(strategy == Resolution.CDCL)
+				return new Cdcl(store, literals, trace).solve();
+			Resolution resolution = new Resolution(store, literals, trace);
+			return strategy == Resolution.GIVEN_CLAUSE ? resolution.givenClause(store.size() - goal.length) :
+					resolution.exhaustive();
+		}
+
+		ClauseStore store = Main.store(Main.clauses(new ArrayList<String[]>(lines.subList(0, lines.size()-1)), literals, false),
+				literals);
+		Resolution resolution = new Resolution(store, literals, trace);
+		resolution.saturate();
+		int checkpoint = (int) store.checkpoint();
+		for(String token : goal)
+			store.add(new int[] {-literals.parse(token)});
+		return resolution.givenClause(checkpoint);
+	}
+
+	/* Proves a kb with every strategy and prints it if they do not all give the expected answer
+	 *		Input:	Name of the kb							(String name)
+	 *				The lines of the kb, with the goal last	(ArrayList<String[]> lines)
+	 *				The expected answer						(boolean valid)
+	 *
+	 *		Output:	True if every strategy gave it			(boolean)
+	 */
+	private static boolean check(String name, ArrayList<String[]> lines, boolean valid)
+	{
+		boolean[] answers = {
+			prove(lines, Resolution.EXHAUSTIVE, false), prove(lines, Resolution.GIVEN_CLAUSE, false),
+			prove(lines, Resolution.CDCL, false), prove(lines, Resolution.GIVEN_CLAUSE, true)
+		};
+		for(boolean answer : answers)
+			if(answer != valid) {
+				System.out.printf("%s: expected %s, exhaustive %s, given %s, cdcl %s, given after saturating %s%n", name,
+						valid, answers[0], answers[1], answers[2], answers[3]);
+				return false;
+			}
+		return true;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		// Read the options
+		int numKbs = 200;
+		try {
+			for(int i = 0; i < args.length; i++) {
+				if(args[i].equals("--kbs") && i+1 < args.length)
+					numKbs = Integer.parseInt(args[++i]);
+				else {
+					System.out.println(args[i] + " is not a valid option.");
+					return;
+				}
+			}
+		} catch(NumberFormatException e) {
+			System.out.println(e.getMessage() + " is not a valid number.");
+			return;
+		}
+
+		// The kbs with a known answer
+		int failed = 0;
+		for(int k = 0; k < KBS.length; k++)
+		{
+			ArrayList<String[]> lines = new ArrayList<String[]>();
+			for(String line : KBS[k])
+				lines.add(line.split("\\s+"));
+			if(!check("kb " + (k+1), lines, VALID[k]))
+				failed++;
+		}
+
+		// The random kbs, small enough to be saturated, whose answer is the one cdcl gives
+		File kbFile = Files.createTempFile("kb-regression", ".kb").toFile();
+		try {
+			for(int seed = 1; seed <= numKbs; seed++)
+			{
+				KbGenerator.random3cnf(6, 4.26, seed, kbFile.getPath());
+				ArrayList<String[]> lines = Main.readLines(kbFile.getPath());
+				if(!check("random3cnf-6 seed " + seed, lines, prove(lines, Resolution.CDCL, false)))
+					failed++;
+			}
+		} finally {
+			kbFile.delete();
+		}
+
+		System.out.println((KBS.length + numKbs - failed) + " of " + (KBS.length + numKbs) + " kbs passed");
+		if(failed > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,625 @@
+/* Resolution.java
+ *
+ *		Description:	Applies the resolution principle to the clauses of a kb until the empty clause is
+ *							found (the kb is contradictory) or no new clause can be made. Each new clause
+ *							keeps the two clauses it came from and is passed to the trace.
+ *							The exhaustive strategy resolves every clause with every clause before it in
+ *							the order they were added. The given clause strategy keeps the negated goal
+ *							and the clauses made from it (the set of support) in a queue with the
+ *							shortest clause first, so that units are chosen first, and only resolves the
+ *							clause taken from the queue with the kb clauses and the clauses taken before it.
+ *							Since the set of support cannot find a contradiction in the kb clauses alone,
+ *							once it is empty they are taken from the queue the same way, resolved only with
+ *							each other and the clauses made from them.
+ *							With subsumption, a new clause is dropped if a clause of the kb has a subset
+ *							of its literals, and the clauses that a new clause subsumes are retired (they
+ *							keep their number but are no longer resolved).
+ *							In parallel, the pairs of a round of clauses are found first and their
+ *							resolvents are made across a fork-join pool, then they are added to the kb
+ *							one at a time in the order the sequential run makes them, so that the clause
+ *							numbers and the output do not change.
+ *							For queries, the kb can be saturated first (every clause resolved with every
+ *							clause before it, without printing a result), so that each query only has to
+ *							resolve its negated goal and the clauses made from it with the clauses before
+ *							them, with either strategy.
+ *							A search can be limited in the number of clauses kept, the length of a new
+ *							clause and its time. A longer clause is dropped, and once there are too many
+ *							clauses the new clauses that no clause was resolved from are evicted (the
+ *							longest or the oldest first) down to half the limit. The search stops if the
+ *							time is up or nothing is left to evict, and if a clause was dropped or evicted
+ *							no new clause being found no longer means Failure, so the result is Unknown.
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Resolution {
+
+	// Strategy types
+	public static final int EXHAUSTIVE = 0;
+	public static final int GIVEN_CLAUSE = 1;
+	public static final int CDCL = 2;
+
+	// Eviction policies
+	public static final int LONGEST = 0;
+	public static final int OLDEST = 1;
+
+	// The most pairs found in one round of a parallel run and the number of pairs each task makes the resolvents of
+	private static final int ROUND = 1 << 14;
+	private static final int TASK = 64;
+
+	private final ClauseStore kb;
+	private final Literals literals;
+	private final Trace trace;
+
+	// The index of the empty clause found while saturating the kb (-1 if it is not contradictory) and whether the kb was
+	// saturated
+	private int contradiction = -1;
+	private boolean saturated;
+
+	// The literals of the new clause, which holds each literal once (an atom can be there twice until it is found always true)
+	private final int[] newClause;
+
+	// The pairs of complementary literals of the clauses of a round and the clauses they are resolved with: each one
+	// is packed as (clause2 << 32) | n, with the clause and the literals of the n-th pair found in pairClause[n],
+	// pairLit1[n] and pairLit2[n], and the pairs of each clause are together
+	private long[] pairs = new long[16];
+	private int[] pairClause = new int[16], pairLit1 = new int[16], pairLit2 = new int[16];
+	private int numPairs;
+
+	// The pool that the resolvents of a round are made on (null to run sequentially), the resolvents made (null if
+	// always true) and whether each one has been made, and the first pair found to make the empty clause
+	private ForkJoinPool pool;
+	private int[][] candidates = new int[16][];
+	private boolean[] made = new boolean[16];
+	private final AtomicInteger firstEmpty = new AtomicInteger();
+
+	// Whether new clauses are checked for subsumption
+	private boolean subsumption;
+
+	// The limits of a search (0 for none): the clauses kept, the length of a new clause and the time in ms, and the
+	// eviction policy
+	private int maxClauses, maxLength;
+	private long timeLimit;
+	private int eviction = LONGEST;
+
+	// The first clause of the current search that can be evicted and the time it has to end by, whether it was stopped by
+	// a limit and whether a clause was dropped or evicted (while saturating the kb, for every query after it)
+	private int from;
+	private long deadline;
+	private boolean stopped, incomplete, saturatedIncomplete;
+
+	// The number of resolvents made (including the ones that were always true or already in the kb), of the ones
+	// dropped because a clause subsumed them or because they were too long, and of the clauses retired and evicted
+	private long generated, subsumed, dropped, retired, evicted;
+
+	/* Creates the resolution of a kb
+	 *		Input:	The kb clauses (sorted), which the new clauses are added to		(ClauseStore kb)
+	 *				The atoms of the kb												(Literals literals)
+	 *				Where the new clauses and the result are printed				(Trace trace)
+	 */
+	public Resolution(ClauseStore kb, Literals literals, Trace trace)
+	{
+		this.kb = kb;
+		this.literals = literals;
+		this.trace = trace;
+		newClause = new int[2 * literals.size()];
+	}
+
+	/* Returns the strategy type for a strategy name
+	 *		Input:	Name of the strategy				(String name)
+	 *
+	 *		Output:	The strategy type or -1 if unknown	(int)
+	 */
+	public static int strategy(String name)
+	{
+		if(name.equals("exhaustive"))
+			return EXHAUSTIVE;
+		if(name.equals("given"))
+			return GIVEN_CLAUSE;
+		if(name.equals("cdcl"))
+			return CDCL;
+		return -1;
+	}
+
+	/* Returns the eviction policy for a policy name
+	 *		Input:	Name of the policy					(String name)
+	 *
+	 *		Output:	The eviction policy or -1 if unknown	(int)
+	 */
+	public static int eviction(String name)
+	{
+		if(name.equals("longest"))
+			return LONGEST;
+		if(name.equals("oldest"))
+			return OLDEST;
+		return -1;
+	}
+
+	/* Makes the resolvents of each round on a number of threads (1 by default)
+	 *		Input:	The number of threads	(int threads)
+	 */
+	public void setParallelism(int threads)
+	{
+		if(pool != null)
+			pool.shutdown();
+		pool = threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	/* Sets whether new clauses are checked for subsumption (off by default)
+	 *		Input:	True to drop subsumed clauses and retire the ones a new clause subsumes	(boolean subsumption)
+	 */
+	public void setSubsumption(boolean subsumption)
+	{
+		this.subsumption = subsumption;
+	}
+
+	/* Sets the limits of each search (none by default)
+	 *		Input:	The number of clauses kept (0 for no limit)				(int maxClauses)
+	 *				The length of a new clause (0 for no limit)				(int maxLength)
+	 *				The time in ms (0 for no limit)							(long timeLimit)
+	 */
+	public void setLimits(int maxClauses, int maxLength, long timeLimit)
+	{
+		this.maxClauses = maxClauses;
+		this.maxLength = maxLength;
+		this.timeLimit = timeLimit;
+	}
+
+	/* Sets which clauses are evicted first once there are too many (the longest by default)
+	 *		Input:	The eviction policy		(int eviction)
+	 */
+	public void setEviction(int eviction)
+	{
+		this.eviction = eviction;
+	}
+
+	/* Returns the number of resolvents made so far
+	 *		Output:	The number of resolvents	(long)
+	 */
+	public long getGenerated()
+	{
+		return generated;
+	}
+
+	/* Returns the number of resolvents dropped because a clause of the kb subsumed them
+	 *		Output:	The number of resolvents	(long)
+	 */
+	public long getSubsumed()
+	{
+		return subsumed;
+	}
+
+	/* Returns the number of resolvents dropped because they were longer than the limit
+	 *		Output:	The number of resolvents	(long)
+	 */
+	public long getDropped()
+	{
+		return dropped;
+	}
+
+	/* Returns the number of clauses retired because a newer clause subsumed them
+	 *		Output:	The number of clauses		(long)
+	 */
+	public long getRetired()
+	{
+		return retired;
+	}
+
+	/* Returns the number of clauses evicted because there were too many
+	 *		Output:	The number of clauses		(long)
+	 */
+	public long getEvicted()
+	{
+		return evicted;
+	}
+
+	/* Resolves every clause with every clause before it, in order, until the empty clause is found or no new clause
+	 * can be made
+	 *		Output:	True if a contradiction was found	(boolean)
+	 */
+	public boolean exhaustive()
+	{
+		return exhaustive(1);
+	}
+
+	/* Resolves every clause from an index on with every clause before it, in order, until the empty clause is found or no
+	 * new clause can be made (the clauses before that index must already have been resolved with each other)
+	 *		Input:	The index of the first clause		(int from)
+	 *
+	 *		Output:	True if a contradiction was found	(boolean)
+	 */
+	public boolean exhaustive(int from)
+	{
+		if(contradiction >= 0)
+			return finish(contradiction);
+		start(from);
+		return finish(resolveFrom(from) && !stopped ? kb.size()-1 : -1);
+	}
+
+	/* Resolves every clause with every clause before it, in order, until the empty clause is found or no new clause can
+	 * be made, without printing the result, so that queries only resolve the clauses added after it
+	 *		Output:	True if the kb is contradictory		(boolean)
+	 */
+	public boolean saturate()
+	{
+		if(contradiction < 0)
+		{
+			start(1);
+			if(resolveFrom(1) && !stopped)
+				contradiction = kb.size()-1;
+			saturatedIncomplete = stopped || incomplete;
+			saturated = true;
+		}
+		return contradiction >= 0;
+	}
+
+	/* Resolves every clause from an index on with every clause before it, in order, until the empty clause is made or no
+	 * new clause can be made
+	 *		Input:	The index of the first clause		(int from)
+	 *
+	 *		Output:	True if the empty clause was made or	(boolean)
+	 *				a limit stopped the search
+	 */
+	private boolean resolveFrom(int from)
+	{
+		// Loop through kb clauses
+		for(int i = Math.max(from, 1); i < kb.size(); i++)
+		{
+			// Loop through the pairs by kb clause before clause1, then literal in clause1, then literal in that clause
+			numPairs = 0;
+			findPairs(i, null);
+
+			// In parallel, take the pairs of the clauses after it until the round is full (the clauses they are resolved
+			// with are all before the new clauses of the round) and make their resolvents at once
+			if(pool != null) {
+				while(numPairs < ROUND && i+1 < kb.size())
+					findPairs(++i, null);
+				makeAll();
+			}
+
+			for(int p = 0; p < numPairs; p++)
+				if(!kb.isRetired(pairClause[(int) pairs[p]]) && resolve(p))
+					return true;
+		}
+		return false;
+	}
+
+	/* Takes the shortest clause (the oldest of those) of the set of support at a time and resolves it with the kb clauses
+	 * outside the set of support and the clauses taken before it, adding the new clauses to the set of support, until the
+	 * empty clause is found or the set of support is empty. The set of support only finds a contradiction that needs the
+	 * goal, so once it is empty the kb clauses outside it are resolved with each other the same way (unless the kb was
+	 * saturated before), and Failure is only printed if they are not contradictory either
+	 *		Input:	The number of kb clauses outside the set of support (the	(int support)
+	 *				clauses after them are the negated goal)
+	 *
+	 *		Output:	True if a contradiction was found							(boolean)
+	 */
+	public boolean givenClause(int support)
+	{
+		if(contradiction >= 0)
+			return finish(contradiction);
+		start(support);
+
+		// The clauses that a given clause is resolved with
+		BitSet usable = new BitSet();
+		usable.set(0, support);
+
+		// The set of support by length, then number, packed as (length << 32) | index (so that a clause evicted while in
+		// the queue keeps its place)
+		PriorityQueue<Long> queue = new PriorityQueue<Long>();
+		for(int i = support; i < kb.size(); i++)
+			queue.add(((long) kb.get(i).length << 32) | i);
+		int empty = takeGiven(queue, usable);
+
+		// Then take the kb clauses outside the set of support, resolving them only with each other and the clauses made from them
+		if(empty < 0 && !stopped && !saturated)
+		{
+			usable.clear();
+			for(int i = 0; i < support; i++)
+				queue.add(((long) kb.get(i).length << 32) | i);
+			empty = takeGiven(queue, usable);
+		}
+		return finish(stopped ? -1 : empty);
+	}
+
+	/* Takes the shortest clause (the oldest of those) of a queue at a time and resolves it with the usable clauses, making it
+	 * usable and queueing the new clauses, until the empty clause is found, the queue is empty or a limit stops the search
+	 *		Input:	The clauses to take, packed as (length << 32) | index	(PriorityQueue<Long> queue)
+	 *				The clauses that a given clause is resolved with		(BitSet usable)
+	 *
+	 *		Output:	The index of the empty clause or -1 if none was made	(int)
+	 */
+	private int takeGiven(PriorityQueue<Long> queue, BitSet usable)
+	{
+		while(!queue.isEmpty())
+		{
+			int given = (int) (long) queue.poll();
+			if(kb.isRetired(given))
+				continue;
+			usable.set(given);
+
+			// Resolve the given clause with the usable ones, queueing the new clauses
+			numPairs = 0;
+			findPairs(given, usable);
+			if(pool != null)
+				makeAll();
+			for(int p = 0; p < numPairs && !kb.isRetired(given); p++)
+			{
+				int size = kb.size();
+				if(resolve(p))
+					return stopped ? -1 : kb.size()-1;
+				if(kb.size() > size && !kb.isRetired(size))
+					queue.add(((long) kb.get(size).length << 32) | size);
+			}
+		}
+		return -1;
+	}
+
+	/* Starts the limits of a search
+	 *		Input:	The index of the first clause that can be evicted	(int from)
+	 */
+	private void start(int from)
+	{
+		this.from = from;
+		deadline = System.nanoTime() + timeLimit * 1000000;
+		stopped = false;
+		incomplete = saturatedIncomplete;
+	}
+
+	/* Prints the result of a search: the proof of the empty clause and Valid, Unknown if a limit stopped the search or a
+	 * clause was dropped or evicted, or Failure
+	 *		Input:	The index of the empty clause or -1 if none was made	(int empty)
+	 *
+	 *		Output:	True if a contradiction was found						(boolean)
+	 */
+	private boolean finish(int empty)
+	{
+		if(empty >= 0) {
+			trace.valid(kb, empty);
+			return true;
+		}
+		if(stopped || incomplete)
+			trace.unknown();
+		else
+			trace.result(false);
+		return false;
+	}
+
+	/* Finds the pairs of complementary literals of a clause and the clauses it is resolved with, adding them after the
+	 * pairs already found sorted by the other clause, then literal in the clause, then literal in the other clause
+	 *		Input:	The index of the clause								(int i)
+	 *				The clauses it is resolved with (other than itself)	(BitSet partners)
+	 *				or null for every clause before it (retired clauses
+	 *				are left out either way)
+	 */
+	private void findPairs(int i, BitSet partners)
+	{
+		if(kb.isRetired(i))
+			return;
+		int[] clause1 = kb.get(i);
+
+		// Find the literals of the partners that are ~ of a literal in clause1 (the occurrences of each literal are in the
+		// order of their clause and position)
+		int start = numPairs;
+		for(int j = 0; j < clause1.length; j++)
+			for(int t = 0; t < kb.occurrences(-clause1[j]); t++)
+			{
+				int k = kb.occurrenceClause(-clause1[j], t);
+				if(partners == null && k >= i)
+					break;
+				if(partners != null && (k == i || !partners.get(k)) || kb.isRetired(k))
+					continue;
+
+				if(numPairs == pairs.length) {
+					pairs = Arrays.copyOf(pairs, 2 * numPairs);
+					pairClause = Arrays.copyOf(pairClause, 2 * numPairs);
+					pairLit1 = Arrays.copyOf(pairLit1, 2 * numPairs);
+					pairLit2 = Arrays.copyOf(pairLit2, 2 * numPairs);
+				}
+				pairs[numPairs] = ((long) k << 32) | numPairs;
+				pairClause[numPairs] = i;
+				pairLit1[numPairs] = j;
+				pairLit2[numPairs] = kb.occurrencePosition(-clause1[j], t);
+				numPairs++;
+			}
+		Arrays.sort(pairs, start, numPairs);
+	}
+
+	/* Makes the resolvents of every pair found on the pool, skipping the pairs after the first one that makes the empty
+	 * clause
+	 */
+	private void makeAll()
+	{
+		if(candidates.length < numPairs) {
+			candidates = new int[pairs.length][];
+			made = new boolean[pairs.length];
+		}
+		Arrays.fill(made, 0, numPairs, false);
+		firstEmpty.set(Integer.MAX_VALUE);
+		pool.invoke(new Maker(0, numPairs));
+	}
+
+	/* Resolves the clauses of a pair found by findPairs, adding the new clause to the kb and printing it (unless it is empty)
+	 * if it is not always true or too long, a clause of the kb does not subsume it and it is not already in the kb, then
+	 * evicts clauses if there are too many
+	 *		Input:	The index of the pair									(int p)
+	 *
+	 *		Output:	True if the new clause is empty or a limit stopped the	(boolean)
+	 *				search
+	 */
+	private boolean resolve(int p)
+	{
+		int i = pairClause[(int) pairs[p]], k = (int) (pairs[p] >>> 32);
+		if(kb.isRetired(k))
+			return false;
+		generated++;
+
+		// Look at the time every 1024 resolvents
+		if(timeLimit > 0 && (generated & 1023) == 0 && System.nanoTime() > deadline) {
+			stopped = true;
+			return true;
+		}
+
+		// Take the resolvent made in parallel, or make it
+		int[] resolvent = pool != null && made[p] ? candidates[p] : make(p, newClause);
+
+		// If new clause is always true (p ~p), do not add it to the kb
+		if(resolvent == null)
+			return false;
+
+		// If the new clause is too long, do not add it
+		if(maxLength > 0 && resolvent.length > maxLength) {
+			dropped++;
+			incomplete = true;
+			return false;
+		}
+
+		// If a clause of the kb subsumes the new clause, do not add it
+		if(subsumption && kb.subsumer(resolvent) >= 0) {
+			subsumed++;
+			return false;
+		}
+
+		// If the new clause is unique to the kb, add it and retire the clauses it subsumes
+		if(!kb.addIfNew(resolvent, i, k))
+			return false;
+		if(subsumption)
+			retired += kb.retireSubsumed(kb.size()-1);
+
+		// If an empty clause is generated, we have found a contradiction
+		if(resolvent.length == 0)
+			return true;
+
+		// Print the new clause
+		trace.added(kb, kb.size()-1);
+
+		// If there are too many clauses, evict the new ones no clause was resolved from down to half the limit, and stop if
+		// that leaves too many
+		if(maxClauses > 0 && kb.retained() > maxClauses)
+		{
+			int count = kb.evict(from, maxClauses / 2, eviction == OLDEST);
+			evicted += count;
+			incomplete |= count > 0;
+			if(kb.retained() > maxClauses) {
+				stopped = true;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/* Makes the resolvent of a pair found by findPairs without changing the kb, so that it can run on any thread
+	 *		Input:	The index of the pair										(int p)
+	 *				Room for the literals of the new clause (2 per atom)		(int[] newClause)
+	 *
+	 *		Output:	The new clause, sorted, or null if it is always true		(int[])
+	 */
+	private int[] make(int p, int[] newClause)
+	{
+		int k = (int) (pairs[p] >>> 32), n = (int) pairs[p];
+		int j = pairLit1[n], l = pairLit2[n];
+		int[] clause1 = kb.get(pairClause[n]), clause2 = kb.get(k);
+
+		// Create new clause by combining clause1 and clause2
+		int size = 0;
+		for(int m = 0; m < clause1.length; m++)
+			if(m != j && !contains(newClause, size, clause1[m]))
+				newClause[size++] = clause1[m];
+		for(int m = 0; m < clause2.length; m++)
+			if(m != l && !contains(newClause, size, clause2[m]))
+				newClause[size++] = clause2[m];
+
+		// Check if the new clause is always true (p ~p)
+		if(alwaysTrue(newClause, size))
+			return null;
+
+		// Alphabetically sort the new clause
+		literals.sort(newClause, size);
+		return Arrays.copyOf(newClause, size);
+	}
+
+	/* Makes the resolvents of a clause with every clause before it without adding them to the kb, to time how fast they
+	 * are made
+	 *		Input:	The index of the clause				(int i)
+	 *
+	 *		Output:	The number of resolvents made		(int)
+	 */
+	int makeResolvents(int i)
+	{
+		numPairs = 0;
+		findPairs(i, null);
+		for(int p = 0; p < numPairs; p++)
+			make(p, newClause);
+		return numPairs;
+	}
+
+	/* Checks if the first literals of a clause hold a literal and its negation
+	 *		Input:	The clause							(int[] clause)
+	 *				The number of literals to look at	(int size)
+	 *
+	 *		Output:	True if the clause is always true	(boolean)
+	 */
+	static boolean alwaysTrue(int[] clause, int size)
+	{
+		for(int m = 0; m < size; m++)
+			if(contains(clause, size, -clause[m]))
+				return true;
+		return false;
+	}
+
+	/* Checks if a literal is among the first literals of a clause
+	 *		Input:	The clause							(int[] clause)
+	 *				The number of literals to look at	(int size)
+	 *				The literal							(int lit)
+	 *
+	 *		Output:	True if the literal is there		(boolean)
+	 */
+	private static boolean contains(int[] clause, int size, int lit)
+	{
+		for(int m = 0; m < size; m++)
+			if(clause[m] == lit)
+				return true;
+		return false;
+	}
+
+	/* A fork-join task that makes the resolvents of a range of pairs */
+	private class Maker extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final int from, to;
+
+		Maker(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			// Split the range until it is small enough to make its resolvents here
+			if(to - from > TASK)
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new Maker(from, mid), new Maker(mid, to));
+				return;
+			}
+
+			// Stop at the pairs after the first one that makes the empty clause, which end the proof
+			int[] newClause = new int[2 * literals.size()];
+			for(int p = from; p < to && p < firstEmpty.get(); p++)
+			{
+				candidates[p] = make(p, newClause);
+				made[p] = true;
+				if(candidates[p] != null && candidates[p].length == 0)
+					firstEmpty.accumulateAndGet(p, Math::min);
+			}
+		}
+	}
+}
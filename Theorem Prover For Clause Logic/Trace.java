@@ -0,0 +1,173 @@
+/* Trace.java
+ *
+ *		Description:	Prints the clauses of a proof through a buffered writer. At the full level every
+ *							new clause is printed as it is added to the kb. At the proof level nothing is
+ *							printed during the search, and once the empty clause is found the clauses it
+ *							was derived from are found by following the parents of each clause back from
+ *							it and only those are printed, in order, with their own numbers or renumbered
+ *							after the kb clauses (the clauses without parents, which for a query are the kb
+ *							and its negated goal). At either level the kb clauses are printed first (and the
+ *							negated goal of each query), and at the off level only the result (Valid,
+ *							Failure or Unknown if a limit stopped the search) is printed.
+ */
+
+import java.io.*;
+import java.util.ArrayList;
+
+public class Trace {
+
+	// Trace levels
+	public static final int OFF = 0;
+	public static final int PROOF = 1;
+	public static final int FULL = 2;
+
+	private final int level;
+	private final boolean renumber;
+	private final Literals literals;
+	private final PrintWriter out;
+
+	/* Creates a trace
+	 *		Input:	The trace level											(int level)
+	 *				True to number the clauses of a proof after the kb		(boolean renumber)
+	 *				The atoms of the kb										(Literals literals)
+	 *				Where the trace is printed								(OutputStream out)
+	 */
+	public Trace(int level, boolean renumber, Literals literals, OutputStream out)
+	{
+		this.level = level;
+		this.renumber = renumber;
+		this.literals = literals;
+		this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out), 1 << 16));
+	}
+
+	/* Returns the trace level for a level name
+	 *		Input:	Name of the level					(String name)
+	 *
+	 *		Output:	The trace level or -1 if unknown	(int)
+	 */
+	public static int level(String name)
+	{
+		if(name.equals("off"))
+			return OFF;
+		if(name.equals("proof"))
+			return PROOF;
+		if(name.equals("full"))
+			return FULL;
+		return -1;
+	}
+
+	/* Returns the trace level
+	 *		Output:	The level	(int)
+	 */
+	public int getLevel()
+	{
+		return level;
+	}
+
+	/* Prints the kb clauses as they were written (before they were sorted)
+	 *		Input:	The kb clauses in order		(ArrayList<int[]> clauses)
+	 */
+	public void kb(ArrayList<int[]> clauses)
+	{
+		if(level == OFF)
+			return;
+		for(int i = 0; i < clauses.size(); i++)
+			clause(i+1, clauses.get(i), 0, 0);
+	}
+
+	/* Prints the negated goal of a query, added at the end of the kb
+	 *		Input:	The kb								(ClauseStore kb)
+	 *				The index of the first goal clause	(int first)
+	 */
+	public void goal(ClauseStore kb, int first)
+	{
+		if(level == OFF)
+			return;
+		for(int i = first; i < kb.size(); i++)
+			clause(i+1, kb.get(i), 0, 0);
+	}
+
+	/* Prints a new clause as it is added to the kb (at the full level)
+	 *		Input:	The kb						(ClauseStore kb)
+	 *				The index of the clause		(int i)
+	 */
+	public void added(ClauseStore kb, int i)
+	{
+		if(level == FULL)
+			clause(i+1, kb.get(i), kb.parent1(i)+1, kb.parent2(i)+1);
+	}
+
+	/* Prints the empty clause and Valid, after the clauses it was derived from at the proof level
+	 *		Input:	The kb							(ClauseStore kb)
+	 *				The index of the empty clause	(int empty)
+	 */
+	public void valid(ClauseStore kb, int empty)
+	{
+		if(level == FULL)
+			clause(empty+1, kb.get(empty), kb.parent1(empty)+1, kb.parent2(empty)+1);
+		else if(level == PROOF)
+		{
+			// Mark the clauses the empty clause was derived from (the parents of a clause are before it)
+			boolean[] used = new boolean[empty+1];
+			used[empty] = true;
+			for(int i = empty; i >= 0; i--)
+				if(used[i] && kb.parent1(i) >= 0) {
+					used[kb.parent1(i)] = true;
+					used[kb.parent2(i)] = true;
+				}
+
+			// Print them in order, with their own number or the next one after the last clause without parents
+			int[] number = new int[empty+1];
+			int next = empty;
+			while(kb.parent1(next) >= 0)
+				next--;
+			next++;
+			for(int i = 0; i <= empty; i++)
+				if(kb.parent1(i) < 0)
+					number[i] = i+1;
+				else if(used[i]) {
+					number[i] = renumber ? ++next : i+1;
+					clause(number[i], kb.get(i), number[kb.parent1(i)], number[kb.parent2(i)]);
+				}
+		}
+		result(true);
+	}
+
+	/* Prints a clause
+	 *		Input:	The number of the clause						(int number)
+	 *				The literals (none for the empty clause)		(int[] clause)
+	 *				The numbers of its parents (0 for a kb clause)	(int parent1, int parent2)
+	 */
+	public void clause(int number, int[] clause, int parent1, int parent2)
+	{
+		out.print(number);
+		out.print(". ");
+		if(clause.length == 0)
+			out.print("Contradiction ");
+		for(int lit : clause) {
+			out.print(literals.toString(lit));
+			out.print(' ');
+		}
+		out.println(parent1 == 0 ? "{}" : "{" + parent1 + ", " + parent2 + "}");
+	}
+
+	/* Prints Valid or Failure
+	 *		Input:	True if a contradiction was found	(boolean valid)
+	 */
+	public void result(boolean valid)
+	{
+		out.println(valid ? "Valid" : "Failure");
+	}
+
+	/* Prints that the search was stopped (or clauses were dropped) before a contradiction was found */
+	public void unknown()
+	{
+		out.println("Unknown (limit reached)");
+	}
+
+	/* Writes out what has been printed so far */
+	public void flush()
+	{
+		out.flush();
+	}
+}